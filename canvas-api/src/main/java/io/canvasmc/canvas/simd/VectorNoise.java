@@ -0,0 +1,84 @@
+package io.canvasmc.canvas.simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized final stage of Perlin noise sampling. Must only be used once {@link SIMDDetection#isEnabled} is set,
+ * as loading this class requires the {@code jdk.incubator.vector} module.
+ * <p>
+ * Every lane performs exactly the same operations in the same order as the scalar sampler, so the results are
+ * bit-identical to it.
+ */
+public final class VectorNoise {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorNoise() {
+    }
+
+    /**
+     * Applies the smoothstep fade and trilinear interpolation of Perlin noise to {@code count} samples.
+     *
+     * @param deltaX  the x position of each sample within its grid cell
+     * @param deltaY  the y position of each sample within its grid cell
+     * @param deltaZ  the z position of each sample within its grid cell
+     * @param corners the 8 corner gradient dot products, stored as 8 consecutive blocks of {@code count} values
+     *                ordered (0,0,0), (1,0,0), (0,1,0), (1,1,0), (0,0,1), (1,0,1), (0,1,1), (1,1,1)
+     * @param out     the array to write the noise values to
+     * @param count   the number of samples
+     */
+    public static void smoothLerp(double[] deltaX, double[] deltaY, double[] deltaZ, double[] corners, double[] out, int count) {
+        final int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            final DoubleVector dx = DoubleVector.fromArray(SPECIES, deltaX, i);
+            final DoubleVector dy = DoubleVector.fromArray(SPECIES, deltaY, i);
+            final DoubleVector dz = DoubleVector.fromArray(SPECIES, deltaZ, i);
+            final DoubleVector sx = dx.mul(dx).mul(dx).mul(dx.mul(dx.mul(6.0).sub(15.0)).add(10.0));
+            final DoubleVector sy = dy.mul(dy).mul(dy).mul(dy.mul(dy.mul(6.0).sub(15.0)).add(10.0));
+            final DoubleVector sz = dz.mul(dz).mul(dz).mul(dz.mul(dz.mul(6.0).sub(15.0)).add(10.0));
+
+            final DoubleVector c000 = DoubleVector.fromArray(SPECIES, corners, i);
+            final DoubleVector c100 = DoubleVector.fromArray(SPECIES, corners, count + i);
+            final DoubleVector c010 = DoubleVector.fromArray(SPECIES, corners, 2 * count + i);
+            final DoubleVector c110 = DoubleVector.fromArray(SPECIES, corners, 3 * count + i);
+            final DoubleVector c001 = DoubleVector.fromArray(SPECIES, corners, 4 * count + i);
+            final DoubleVector c101 = DoubleVector.fromArray(SPECIES, corners, 5 * count + i);
+            final DoubleVector c011 = DoubleVector.fromArray(SPECIES, corners, 6 * count + i);
+            final DoubleVector c111 = DoubleVector.fromArray(SPECIES, corners, 7 * count + i);
+
+            final DoubleVector x00 = c000.add(sx.mul(c100.sub(c000)));
+            final DoubleVector x11 = c011.add(sx.mul(c111.sub(c011)));
+            final DoubleVector x01 = c001.add(sx.mul(c101.sub(c001)));
+            final DoubleVector x10 = c010.add(sx.mul(c110.sub(c010)));
+            final DoubleVector y0 = x00.add(sy.mul(x10.sub(x00)));
+            final DoubleVector y1 = x01.add(sy.mul(x11.sub(x01)));
+            y0.add(sz.mul(y1.sub(y0))).intoArray(out, i);
+        }
+        for (; i < count; ++i) {
+            out[i] = smoothLerp(deltaX[i], deltaY[i], deltaZ[i], corners, i, count);
+        }
+    }
+
+    private static double smoothLerp(double dx, double dy, double dz, double[] corners, int i, int count) {
+        final double sx = dx * dx * dx * (dx * (dx * 6.0 - 15.0) + 10.0);
+        final double sy = dy * dy * dy * (dy * (dy * 6.0 - 15.0) + 10.0);
+        final double sz = dz * dz * dz * (dz * (dz * 6.0 - 15.0) + 10.0);
+        final double c000 = corners[i];
+        final double c100 = corners[count + i];
+        final double c010 = corners[2 * count + i];
+        final double c110 = corners[3 * count + i];
+        final double c001 = corners[4 * count + i];
+        final double c101 = corners[5 * count + i];
+        final double c011 = corners[6 * count + i];
+        final double c111 = corners[7 * count + i];
+        final double x00 = c000 + sx * (c100 - c000);
+        final double x11 = c011 + sx * (c111 - c011);
+        final double x01 = c001 + sx * (c101 - c001);
+        final double x10 = c010 + sx * (c110 - c010);
+        final double y0 = x00 + sy * (x10 - x00);
+        final double y1 = x01 + sy * (x11 - x01);
+        return y0 + sz * (y1 - y0);
+    }
+}
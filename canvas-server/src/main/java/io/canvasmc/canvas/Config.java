@@ -92,6 +92,16 @@ public class Config {
         @Comment("Whether to enable aquifer optimizations to accelerate overworld worldgen")
         public boolean optimizeAquifer = false;
 
+        @Comment({
+            "Whether computed aquifer fluid statuses should be shared between chunks of the same world.",
+            "Aquifer grid cells overlap neighbouring chunks, which otherwise each sample the cell's surface and fluid levels again"
+        })
+        public boolean shareAquiferCells = false;
+
+        @PositiveNumericValueValidator.PositiveNumericValue
+        @Comment("The number of aquifer cells kept per world, rounded up to a power of two. Only works with 'shareAquiferCells' enabled")
+        public int aquiferCellCacheCapacity = 65536;
+
         @Comment("Whether to enable End Biome Cache to accelerate The End worldgen")
         public boolean useEndBiomeCache = false;
 
@@ -99,12 +109,43 @@ public class Config {
         @Comment("The cache capacity for the end biome cache. Only works with 'useEndBiomeCache' enabled")
         public int endBiomeCacheCapacity = 1024;
 
+        @Comment({
+            "Whether to cache the biomes sampled by multi noise biome sources (overworld and nether) per worldgen thread.",
+            "Each quart position is otherwise sampled again by the biomes, noise, surface and feature stages.",
+            "Hit rate statistics are available through '/biomecache'"
+        })
+        public boolean useMultiNoiseBiomeCache = false;
+
+        @PositiveNumericValueValidator.PositiveNumericValue
+        @Comment("The per-thread cache capacity for the multi noise biome cache. Only works with 'useMultiNoiseBiomeCache' enabled")
+        public int multiNoiseBiomeCacheCapacity = 8192;
+
         @Comment("Whether to enable Beardifier optimizations to accelerate world generation")
         public boolean optimizeBeardifier = false;
 
         @Comment("Whether to enable optimizations to the noise based chunk generator")
         public boolean optimizeNoiseGeneration = false;
 
+        @Comment({
+            "Whether the density functions of each world's noise router should be compiled into generated classes.",
+            "Arithmetic between noises and cache markers is inlined with constants folded, which mostly helps",
+            "datapacks with large custom terrain graphs. The generated terrain is identical"
+        })
+        public boolean compileDensityFunctions = false;
+
+        @Comment({
+            "Whether the surface rules of each chunk should be flattened into a single instruction list before building the surface.",
+            "Tests on equal conditions also share one memoized result per column, so biome, Y and noise checks used",
+            "by several rules are only computed once. The generated surface is identical"
+        })
+        public boolean compileSurfaceRules = false;
+
+        @Comment({
+            "Whether the final heightmaps of generating chunks should be updated as blocks are written from the noise stage on,",
+            "instead of being primed by scanning every column before features are placed. The heightmaps are identical"
+        })
+        public boolean trackGenerationHeightmaps = false;
+
         @Comment({
             "Once one task is completed then the next task starts immediately, to prevent blocking threads while waiting to complete all tasks",
             "WARNING: May cause the sequence of future compose disorder"
@@ -114,6 +155,99 @@ public class Config {
         @Comment("Whether to use a rewritten random tick system to optimize the server")
         public boolean optimizeRandomTick = false;
 
+        @Comment({
+            "Whether the rewritten random tick system should pick all positions to tick first and then tick them grouped by block,",
+            "so the same block implementation runs back to back. All picks draw from the shared random before any block is ticked,",
+            "so the picked positions differ from the ungrouped order. Only their distribution is the same.",
+            "Only works with 'optimizeRandomTick' enabled"
+        })
+        public boolean groupRandomTicksByBlock = false;
+
+        @Comment({
+            "Whether the rewritten random tick system should keep the ticking block weights of every chunk between ticks",
+            "and only recount chunks whose ticking blocks changed, drawing the ticked sections from a Fenwick tree instead of",
+            "rebuilding the weight lists every tick. Only works with 'optimizeRandomTick' enabled"
+        })
+        public boolean incrementalRandomTickWeights = false;
+
+        @Comment({
+            "Whether sleeping block entities, such as idle furnaces and brewing stands, should be taken out of the block entity",
+            "ticking list until they wake up, instead of being visited every tick. Timed sleeps stay listed and wake themselves"
+        })
+        public boolean parkSleepingBlockEntities = false;
+
+        @Comment({
+            "Whether hoppers that failed to move any items should fall asleep until their own inventory, the containers they",
+            "pull from or push into, or one of their neighbouring blocks change. Only hoppers next to block containers or full blocks",
+            "sleep, and only while no plugin listens to hopper move or search events"
+        })
+        public boolean sleepingHoppers = false;
+
+        @Comment({
+            "Whether scheduled block and fluid ticks should track their chunks in per-game-tick buckets, so",
+            "finding the chunks with due ticks no longer walks every chunk holding a scheduled tick. Tick",
+            "execution order is unchanged"
+        })
+        public boolean bucketedLevelTicks = false;
+
+        @Comment({
+            "Whether fluids should remember where they spread to per chunk section, so settled lava and water",
+            "flows skip the hole and slope search until a block near them changes"
+        })
+        public boolean cacheFluidSpread = false;
+
+        @Comment({
+            "Whether block collision and suffocation checks should skip chunk sections that only hold blocks",
+            "without a collision shape, such as water, plants or air"
+        })
+        public boolean skipSectionsWithoutCollisions = false;
+
+        @Comment({
+            "Whether each region should keep the merged collision shape of the chunk sections entities keep",
+            "colliding with, so collision and suffocation checks test a whole section at once instead of",
+            "looking at every block in reach. Sections holding blocks whose shape depends on the entity are",
+            "still checked block by block"
+        })
+        public boolean cacheSectionShapes = false;
+
+        @Comment({
+            "Whether chunk saves should take copy-on-write snapshots of the block, biome and light data",
+            "instead of copying every section on the region thread. The data is only duplicated if the",
+            "region modifies a section before the save executor has finished serializing it"
+        })
+        public boolean copyOnWriteChunkSaves = false;
+
+        @Comment({
+            "Whether chunk sections should be encoded directly into their NBT form when saving,",
+            "rather than through the generic palette codecs. The written data is identical"
+        })
+        public boolean directChunkSectionEncoding = false;
+
+        @Comment({
+            "Whether decoded block state palette entries should be cached while loading chunks.",
+            "Chunk palettes repeat the same block states constantly, so this skips most of the",
+            "codec work done per section when chunks are read from disk"
+        })
+        public boolean cacheBlockStateDecoding = false;
+
+        @Comment({
+            "Whether region file header writes should be coalesced while a full save (save-all or shutdown) of a world is running.",
+            "Instead of rewriting the 8KiB header after every chunk, each touched region file of the world writes its header",
+            "once the save and its queued chunk writes completed, so the save waits for its writes to reach disk.",
+            "Freed sectors are only reused after the header is written, so an interrupted save can lose recent chunk",
+            "writes but will not corrupt the region file"
+        })
+        public boolean batchRegionFileWrites = false;
+
+        @Comment({
+            "Whether the shutdown save should save regions of all worlds in parallel instead of one after another.",
+            "Level data is saved as soon as the chunks of its world are done, and players are saved alongside the chunks"
+        })
+        public boolean parallelShutdownSave = false;
+
+        @Comment("The number of threads used for the parallel shutdown save. Values below 1 use the available processor count")
+        public int shutdownSaveThreads = -1;
+
         public Structures structures = new Structures();
         public static class Structures {
             @Comment({
@@ -234,6 +368,28 @@ public class Config {
     })
     public EntityCollisionMode entityCollisionMode = EntityCollisionMode.VANILLA;
 
+    public Explosions explosions = new Explosions();
+    public static class Explosions {
+        @Comment({
+            "Whether the block destruction rays of large tnt and end crystal explosions should be cast on a",
+            "shared worker pool. The region thread waits for the result, which is identical to casting the rays",
+            "one by one"
+        })
+        public boolean parallelRayCasting = false;
+
+        @Comment("The minimum explosion radius for the rays to be cast in parallel")
+        public float parallelRayCastingMinRadius = 8.0F;
+
+        @Comment("The amount of worker threads casting explosion rays, 0 or less uses half of the available processors")
+        public int parallelRayCastingThreads = 0;
+
+        @Comment({
+            "Whether explosions going off in the same block during a tick should be sent to players as a single",
+            "explosion packet with their knockback combined, instead of one packet per explosion"
+        })
+        public boolean batchExplosionEffects = false;
+    }
+
     // TODO - check these on minecraft updates
     public Fixes fixes = new Fixes();
     public static class Fixes {
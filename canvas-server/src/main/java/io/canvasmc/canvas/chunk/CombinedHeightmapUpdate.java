@@ -4,11 +4,11 @@ import java.util.Objects;
 import java.util.function.Predicate;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.state.BlockState;
-import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.levelgen.Heightmap;
 
 public class CombinedHeightmapUpdate {
-    public static void updateHeightmaps(Heightmap heightmap0, Heightmap heightmap1, Heightmap heightmap2, Heightmap heightmap3, LevelChunk worldChunk, final int x, final int y, final int z, BlockState state) {
+    public static void updateHeightmaps(Heightmap heightmap0, Heightmap heightmap1, Heightmap heightmap2, Heightmap heightmap3, ChunkAccess worldChunk, final int x, final int y, final int z, BlockState state) {
         final int height0 = heightmap0.getFirstAvailable(x, z);
         final int height1 = heightmap1.getFirstAvailable(x, z);
         final int height2 = heightmap2.getFirstAvailable(x, z);
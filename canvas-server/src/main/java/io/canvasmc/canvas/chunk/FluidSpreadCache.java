@@ -0,0 +1,114 @@
+package io.canvasmc.canvas.chunk;
+
+import io.canvasmc.canvas.Config;
+import io.papermc.paper.threadedregions.RegionizedWorldData;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import java.util.Collections;
+import java.util.Map;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FluidState;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-region cache of {@code FlowingFluid#getSpread} results, grouped by chunk section.
+ * <p>
+ * A spread decision only reads blocks up to one past the slope search distance sideways and one block above and
+ * below, so every block change drops the cached sections that could hold a position within that reach, and so does
+ * loading or unloading a chunk, since blocks of unloaded chunks are skipped by the search. A result is
+ * also only reused for the same block state and source conversion game rule it was computed with, so fluids sitting
+ * in a settled flow stop repeating the hole and slope search on every tick.
+ */
+public final class FluidSpreadCache {
+    // the slope search reads up to slopeFindDistance + 1 blocks sideways, five for water and nether lava
+    private static final int HORIZONTAL_REACH = 5;
+    private static final int MAX_SECTIONS = 4096;
+
+    private final Long2ObjectOpenHashMap<Short2ObjectOpenHashMap<Entry>> sections = new Long2ObjectOpenHashMap<>();
+
+    public static @Nullable FluidSpreadCache of(@NotNull ServerLevel level) {
+        if (!Config.INSTANCE.chunks.cacheFluidSpread) {
+            return null;
+        }
+        final RegionizedWorldData worldData = level.getCurrentWorldData();
+        return worldData == null ? null : worldData.fluidSpreadCache;
+    }
+
+    public static void blockChanged(@NotNull ServerLevel level, @NotNull BlockPos pos) {
+        final FluidSpreadCache cache = of(level);
+        if (cache != null && !cache.sections.isEmpty()) {
+            cache.invalidate(pos.getX(), pos.getY(), pos.getZ());
+        }
+    }
+
+    public static void chunkChanged(@NotNull ServerLevel level, int chunkX, int chunkZ) {
+        final FluidSpreadCache cache = of(level);
+        if (cache != null && !cache.sections.isEmpty()) {
+            cache.invalidateChunk(chunkX, chunkZ, level.getMinSectionY(), level.getMaxSectionY());
+        }
+    }
+
+    private static short index(@NotNull BlockPos pos) {
+        return (short) ((pos.getY() & 15) << 8 | (pos.getZ() & 15) << 4 | pos.getX() & 15);
+    }
+
+    public @Nullable Map<Direction, FluidState> get(@NotNull BlockPos pos, BlockState state, boolean convertToSource) {
+        final Short2ObjectOpenHashMap<Entry> section = this.sections.get(SectionPos.asLong(pos));
+        if (section == null) {
+            return null;
+        }
+        final Entry entry = section.get(index(pos));
+        return entry != null && entry.state == state && entry.convertToSource == convertToSource ? entry.spread : null;
+    }
+
+    public @NotNull Map<Direction, FluidState> put(@NotNull BlockPos pos, BlockState state, boolean convertToSource, Map<Direction, FluidState> spread) {
+        final long sectionKey = SectionPos.asLong(pos);
+        Short2ObjectOpenHashMap<Entry> section = this.sections.get(sectionKey);
+        if (section == null) {
+            if (this.sections.size() >= MAX_SECTIONS) {
+                this.sections.clear();
+            }
+            section = new Short2ObjectOpenHashMap<>();
+            this.sections.put(sectionKey, section);
+        }
+        // callers only iterate the result, make sure nobody mutates the shared copy
+        final Map<Direction, FluidState> shared = Collections.unmodifiableMap(spread);
+        section.put(index(pos), new Entry(state, convertToSource, shared));
+        return shared;
+    }
+
+    private void invalidate(int x, int y, int z) {
+        final int minSectionX = (x - HORIZONTAL_REACH) >> 4;
+        final int maxSectionX = (x + HORIZONTAL_REACH) >> 4;
+        final int minSectionY = (y - 1) >> 4;
+        final int maxSectionY = (y + 1) >> 4;
+        final int minSectionZ = (z - HORIZONTAL_REACH) >> 4;
+        final int maxSectionZ = (z + HORIZONTAL_REACH) >> 4;
+        for (int sectionX = minSectionX; sectionX <= maxSectionX; sectionX++) {
+            for (int sectionZ = minSectionZ; sectionZ <= maxSectionZ; sectionZ++) {
+                for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                    this.sections.remove(SectionPos.asLong(sectionX, sectionY, sectionZ));
+                }
+            }
+        }
+    }
+
+    private void invalidateChunk(int chunkX, int chunkZ, int minSectionY, int maxSectionY) {
+        // the reach is shorter than a section, only the sections of the chunk and its direct neighbours can see it
+        for (int sectionX = chunkX - 1; sectionX <= chunkX + 1; sectionX++) {
+            for (int sectionZ = chunkZ - 1; sectionZ <= chunkZ + 1; sectionZ++) {
+                for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+                    this.sections.remove(SectionPos.asLong(sectionX, sectionY, sectionZ));
+                }
+            }
+        }
+    }
+
+    private record Entry(BlockState state, boolean convertToSource, Map<Direction, FluidState> spread) {
+    }
+}
@@ -3,11 +3,16 @@ package io.canvasmc.canvas.chunk;
 import ca.spottedleaf.moonrise.common.list.ReferenceList;
 import ca.spottedleaf.moonrise.common.list.ShortList;
 import io.papermc.paper.threadedregions.RegionizedWorldData;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import java.util.Arrays;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.GameRules;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
@@ -20,10 +25,26 @@ public final class RandomTickSystem {
     private static final long CHUNK_BLOCKS = 4096L / 4L;
     private static final int BITS_STEP = 2;
     private static final int BITS_MAX = 60;
+    private static final long SECTION_BLOCKS = 4096L;
 
     private final LongArrayList queue = new LongArrayList();
     private final LongArrayList samples = new LongArrayList();
     private final LongArrayList weights = new LongArrayList();
+    private final LongArrayList picked = new LongArrayList();
+    private final IntArrayList pickedGroups = new IntArrayList();
+    private final LongArrayList sorted = new LongArrayList();
+    private final Reference2IntOpenHashMap<Block> groupIds = new Reference2IntOpenHashMap<>();
+    private final IntArrayList groupCounts = new IntArrayList();
+    private final WeightTree weightTree = new WeightTree();
+    // chunks whose ticking blocks changed since their weight was last counted, the only ones recounted on a tick
+    private final ReferenceArrayList<LevelChunk> dirtyChunks = new ReferenceArrayList<>();
+    private LevelChunk[] trackedChunks = new LevelChunk[0];
+    private int trackedSize;
+    private boolean trackedValid;
+
+    public RandomTickSystem() {
+        groupIds.defaultReturnValue(-1);
+    }
 
     public void tick(RegionizedWorldData worldData) {
         ServerLevel world = worldData.world;
@@ -43,21 +64,99 @@ public final class RandomTickSystem {
         if (!disableIceAndSnow) {
             iceSnow(world, size, randomTickSpeed, random, raw);
         }
-        final long weightsSum = collectTickingChunks(size, random, raw, randomTickSpeed);
-        if (samples.isEmpty() || weightsSum == 0L) {
+        final LevelChunk[] chunks;
+        if (io.canvasmc.canvas.Config.INSTANCE.chunks.incrementalRandomTickWeights) {
+            if (!trackedValid) {
+                rebuildTracked(raw, size);
+            }
+            sampleTracked(random, randomTickSpeed);
+            chunks = trackedChunks;
+        } else {
+            chunks = raw;
+            // the tracked weights are not kept up to date by this path
+            trackedValid = false;
+            final long weightsSum = collectTickingChunks(size, random, raw, randomTickSpeed);
+            if (samples.isEmpty() || weightsSum == 0L) {
+                return;
+            }
+            sampling(random, weightsSum);
+        }
+        if (queue.isEmpty()) {
             return;
         }
-        sampling(random, weightsSum);
 
         final long[] q = queue.elements();
         final int minY = ca.spottedleaf.moonrise.common.util.WorldUtil.getMinSection(world) << 4;
+        if (io.canvasmc.canvas.Config.INSTANCE.chunks.groupRandomTicksByBlock) {
+            tickGrouped(world, chunks, random, minY);
+            return;
+        }
         for (int k = 0, len = queue.size(); k < len; ++k) {
             final long packed = q[k];
-            final LevelChunk chunk = raw[(int) (packed >>> 16)];
+            final LevelChunk chunk = chunks[(int) (packed >>> 16)];
             tickBlock(world, chunk, (int) (packed & 0xFFFF), random, minY);
         }
     }
 
+    // picks the position of every queued sample first, then ticks them bucketed by block in sampling order
+    private void tickGrouped(ServerLevel world, LevelChunk[] raw, BitRandomSource random, int minSection) {
+        final long[] q = queue.elements();
+        final int len = queue.size();
+        picked.clear();
+        pickedGroups.clear();
+        groupIds.clear();
+        groupCounts.clear();
+
+        for (int k = 0; k < len; ++k) {
+            final long packed = q[k];
+            final int sectionIdx = (int) (packed & 0xFFFF);
+            final LevelChunkSection section = raw[(int) (packed >>> 16)].getSection(sectionIdx);
+            final ShortList list = section.moonrise$getTickingBlockList();
+            final int size = list.size();
+            if (size == 0) continue;
+            final short location = list.getRaw(boundedNextInt(random, size));
+            final Block block = section.states.get(location).getBlock();
+            int group = groupIds.getInt(block);
+            if (group == -1) {
+                group = groupCounts.size();
+                groupIds.put(block, group);
+                groupCounts.add(0);
+            }
+            groupCounts.set(group, groupCounts.getInt(group) + 1);
+            picked.add(packed << 16 | (location & 0xFFFFL));
+            pickedGroups.add(group);
+        }
+
+        // stable counting sort by group, keeping the sampling order within each block
+        final int groups = groupCounts.size();
+        final int[] offsets = groupCounts.elements();
+        for (int g = 0, offset = 0; g < groups; ++g) {
+            final int count = offsets[g];
+            offsets[g] = offset;
+            offset += count;
+        }
+        final int pickedSize = picked.size();
+        sorted.size(pickedSize);
+        final long[] p = picked.elements();
+        final int[] pg = pickedGroups.elements();
+        final long[] sortedElements = sorted.elements();
+        for (int k = 0; k < pickedSize; ++k) {
+            sortedElements[offsets[pg[k]]++] = p[k];
+        }
+
+        for (int k = 0; k < pickedSize; ++k) {
+            final long packed = sortedElements[k];
+            final LevelChunk chunk = raw[(int) (packed >>> 32)];
+            final int sectionIdx = (int) ((packed >>> 16) & 0xFFFF);
+            final short location = (short) (packed & 0xFFFF);
+            final LevelChunkSection section = chunk.getSection(sectionIdx);
+            // an earlier tick may have changed the block, tick what is there now like an ungrouped tick would
+            final BlockState state = section.states.get(location);
+            if (!state.isRandomlyTicking()) continue;
+            tickState(world, chunk, sectionIdx, location, state, random, minSection);
+        }
+    }
+
     private void sampling(BitRandomSource random, long weightsSum) {
         final long chosen = ((weightsSum % SCALE) >= boundedNextLong(random, SCALE))
             ? (weightsSum / SCALE + 1L)
@@ -84,6 +183,137 @@ public final class RandomTickSystem {
         }
     }
 
+    // draws ticking blocks uniformly from the persistent per chunk weights, each one is picked with probability speed / 4096 like vanilla's per section rolls
+    void sampleTracked(BitRandomSource random, long randomTickSpeed) {
+        queue.clear();
+        drainDirtyChunks();
+        final long total = weightTree.total();
+        if (total == 0L) {
+            return;
+        }
+        final long expected = total * randomTickSpeed;
+        final long chosen = (expected % SECTION_BLOCKS) > boundedNextLong(random, SECTION_BLOCKS)
+            ? (expected / SECTION_BLOCKS + 1L)
+            : (expected / SECTION_BLOCKS);
+
+        for (long n = 0L; n < chosen; ++n) {
+            final int slot = weightTree.find(boundedNextLong(random, total));
+            long remainder = weightTree.remainder;
+            for (int packed : trackedChunks[slot].leaf$tickingCount) {
+                final int count = packed >>> 16;
+                if (remainder < count) {
+                    queue.add(((long) slot) << 16 | (packed & 0xFFFF));
+                    break;
+                }
+                remainder -= count;
+            }
+        }
+        // tick chunk by chunk like the systematic sampling does
+        Arrays.sort(queue.elements(), 0, queue.size());
+    }
+
+    LongArrayList sampled() {
+        return queue;
+    }
+
+    long trackedWeight() {
+        return weightTree.total();
+    }
+
+    LevelChunk[] trackedChunks() {
+        return trackedChunks;
+    }
+
+    public static void markTickingBlocksDirty(LevelChunk chunk) {
+        // a chunk that is already dirty is queued already, or not tracked at all
+        if (chunk.leaf$tickingBlocksDirty) {
+            return;
+        }
+        chunk.leaf$tickingBlocksDirty = true;
+        final RandomTickSystem system = chunk.canvas$randomTickSystem;
+        if (system != null && system.trackedValid) {
+            system.dirtyChunks.add(chunk);
+        }
+    }
+
+    public void chunkAdded(LevelChunk chunk) {
+        if (!trackedValid) {
+            return;
+        }
+        track(chunk);
+    }
+
+    public void chunkRemoved(LevelChunk chunk) {
+        final int slot = chunk.canvas$randomTickSlot;
+        if (chunk.canvas$randomTickSystem != this || slot >= trackedSize || trackedChunks[slot] != chunk) {
+            return;
+        }
+        chunk.canvas$randomTickSystem = null;
+        chunk.canvas$randomTickSlot = -1;
+        // keep the slots dense by moving the last tracked chunk into the freed one
+        final int last = --trackedSize;
+        final LevelChunk moved = trackedChunks[last];
+        trackedChunks[last] = null;
+        if (slot != last) {
+            trackedChunks[slot] = moved;
+            moved.canvas$randomTickSlot = slot;
+            weightTree.set(slot, weightTree.get(last));
+        }
+        weightTree.set(last, 0L);
+    }
+
+    // merged regions bring chunks this system never saw, they are picked up by a rebuild on the next tick
+    public void invalidate() {
+        trackedValid = false;
+    }
+
+    void rebuildTracked(LevelChunk[] raw, int size) {
+        Arrays.fill(trackedChunks, 0, trackedSize, null);
+        weightTree.clear();
+        dirtyChunks.clear();
+        trackedSize = 0;
+        trackedValid = true;
+        for (int i = 0; i < size; i++) {
+            track(raw[i]);
+        }
+    }
+
+    private void track(LevelChunk chunk) {
+        if (trackedChunks.length == trackedSize) {
+            trackedChunks = Arrays.copyOf(trackedChunks, Math.max(16, trackedSize << 1));
+            weightTree.ensureCapacity(trackedChunks.length);
+        }
+        final int slot = trackedSize++;
+        trackedChunks[slot] = chunk;
+        chunk.canvas$randomTickSystem = this;
+        chunk.canvas$randomTickSlot = slot;
+        weightTree.set(slot, tickingBlocks(chunk));
+    }
+
+    private void drainDirtyChunks() {
+        final LevelChunk[] dirty = dirtyChunks.elements();
+        for (int i = 0, size = dirtyChunks.size(); i < size; i++) {
+            final LevelChunk chunk = dirty[i];
+            final int slot = chunk.canvas$randomTickSlot;
+            // chunks may have been removed or moved to another region since they were queued
+            if (chunk.canvas$randomTickSystem == this && slot < trackedSize && trackedChunks[slot] == chunk) {
+                weightTree.set(slot, tickingBlocks(chunk));
+            }
+        }
+        dirtyChunks.clear();
+    }
+
+    private static int tickingBlocks(LevelChunk chunk) {
+        if (chunk.leaf$tickingBlocksDirty) {
+            populateChunkTickingCount(chunk);
+        }
+        int sum = 0;
+        for (int packed : chunk.leaf$tickingCount) {
+            sum += packed >>> 16;
+        }
+        return sum;
+    }
+
     private long collectTickingChunks(int size, BitRandomSource random, LevelChunk[] raw, long randomTickSpeed) {
         int bits = 0;
         long cacheRandom = random.nextLong();
@@ -158,6 +388,10 @@ public final class RandomTickSystem {
         if (size == 0) return;
         short location = list.getRaw(boundedNextInt(random, size));
         BlockState state = section.states.get(location);
+        tickState(world, chunk, sectionIdx, location, state, random, minSection);
+    }
+
+    private static void tickState(ServerLevel world, LevelChunk chunk, int sectionIdx, short location, BlockState state, BitRandomSource random, int minSection) {
         final BlockPos pos = new BlockPos((location & 15) | (chunk.locX << 4), (location >>> 8) | (minSection + (sectionIdx << 4)), ((location >>> 4) & 15) | (chunk.locZ << 4));
         state.randomTick(world, pos, random);
 
@@ -199,4 +433,68 @@ public final class RandomTickSystem {
         }
         return r;
     }
+
+    // Fenwick tree over the ticking block count of each tracked chunk slot
+    static final class WeightTree {
+        private long[] values = new long[0];
+        private long[] tree = new long[1];
+        private long total;
+        // what is left of the last searched target inside the found slot
+        long remainder;
+
+        long total() {
+            return total;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        void clear() {
+            Arrays.fill(values, 0L);
+            Arrays.fill(tree, 0L);
+            total = 0L;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= values.length) {
+                return;
+            }
+            values = Arrays.copyOf(values, capacity);
+            tree = new long[capacity + 1];
+            for (int i = 1; i <= capacity; i++) {
+                tree[i] += values[i - 1];
+                final int parent = i + (i & -i);
+                if (parent <= capacity) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        void set(int index, long value) {
+            final long delta = value - values[index];
+            if (delta == 0L) {
+                return;
+            }
+            values[index] = value;
+            total += delta;
+            for (int i = index + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        // returns the slot containing target, which must be in [0, total)
+        int find(long target) {
+            int pos = 0;
+            for (int step = Integer.highestOneBit(tree.length - 1); step != 0; step >>= 1) {
+                final int next = pos + step;
+                if (next < tree.length && tree[next] <= target) {
+                    pos = next;
+                    target -= tree[next];
+                }
+            }
+            remainder = target;
+            return pos;
+        }
+    }
 }
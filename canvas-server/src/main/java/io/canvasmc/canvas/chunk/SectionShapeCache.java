@@ -0,0 +1,133 @@
+package io.canvasmc.canvas.chunk;
+
+import io.canvasmc.canvas.Config;
+import io.papermc.paper.threadedregions.RegionizedWorldData;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.phys.shapes.ArrayVoxelShape;
+import net.minecraft.world.phys.shapes.BitSetDiscreteVoxelShape;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-region cache of the merged collision shape of chunk sections, in world coordinates.
+ * <p>
+ * Every section counts the changes to the collision shapes of its blocks, and an entry is only used for the same
+ * section instance at the same count, so block changes, chunk reloads and region splits can never hand out a stale
+ * shape. A section is merged the second time it is queried without changing in between, sections that change more
+ * often than entities collide with them keep being checked block by block. Sections holding a block whose collision
+ * shape depends on the entity or the position are never merged.
+ */
+public final class SectionShapeCache {
+    private static final int MAX_SECTIONS = 4096;
+    // full blocks are merged in one go, every other shape is joined on its own
+    private static final int MAX_PARTIAL_SHAPES = 256;
+
+    private final Long2ObjectOpenHashMap<Entry> sections = new Long2ObjectOpenHashMap<>();
+
+    public static @Nullable SectionShapeCache of(@NotNull Level level) {
+        if (!Config.INSTANCE.chunks.cacheSectionShapes || !(level instanceof ServerLevel serverLevel)) {
+            return null;
+        }
+        final RegionizedWorldData worldData = serverLevel.getCurrentWorldData();
+        return worldData == null ? null : worldData.sectionShapeCache;
+    }
+
+    /**
+     * Returns the union of the collision shapes of every block in the section, or {@code null} if the section has to
+     * be checked block by block
+     */
+    public static @Nullable VoxelShape getShape(@NotNull Level level, @NotNull LevelChunkSection section, int sectionX, int sectionY, int sectionZ) {
+        final SectionShapeCache cache = of(level);
+        return cache == null ? null : cache.get(section, sectionX, sectionY, sectionZ);
+    }
+
+    public @Nullable VoxelShape get(@NotNull LevelChunkSection section, int sectionX, int sectionY, int sectionZ) {
+        final long key = SectionPos.asLong(sectionX, sectionY, sectionZ);
+        final int version = section.canvas$collisionShapeVersion;
+        final Entry entry = this.sections.get(key);
+        if (entry != null && entry.section == section && entry.version == version) {
+            if (!entry.merged) {
+                entry.merged = true;
+                entry.shape = merge(section, sectionX, sectionY, sectionZ);
+            }
+            return entry.shape;
+        }
+        if (entry == null && this.sections.size() >= MAX_SECTIONS) {
+            this.sections.clear();
+        }
+        this.sections.put(key, new Entry(section, version));
+        return null;
+    }
+
+    static @Nullable VoxelShape merge(@NotNull LevelChunkSection section, int sectionX, int sectionY, int sectionZ) {
+        if (section.hasOnlyAir() || section.canvas$collidingBlockCount == 0) {
+            return Shapes.empty();
+        }
+        final int baseX = sectionX << 4;
+        final int baseY = sectionY << 4;
+        final int baseZ = sectionZ << 4;
+        final PalettedContainer<BlockState> states = section.states;
+        final BitSetDiscreteVoxelShape fullBlocks = new BitSetDiscreteVoxelShape(16, 16, 16);
+        boolean hasFullBlocks = false;
+        final ObjectArrayList<VoxelShape> partialShapes = new ObjectArrayList<>();
+        for (int index = 0; index < 16 * 16 * 16; index++) {
+            final BlockState state = states.get(index);
+            if (state.moonrise$emptyContextCollisionShape()) {
+                continue;
+            }
+            final VoxelShape shape = state.moonrise$getConstantContextCollisionShape();
+            if (shape == null) {
+                return null;
+            }
+            final int x = index & 15;
+            final int z = (index >>> 4) & 15;
+            final int y = index >>> 8;
+            if (shape == Shapes.block()) {
+                fullBlocks.fill(x, y, z);
+                hasFullBlocks = true;
+                continue;
+            }
+            if (partialShapes.size() == MAX_PARTIAL_SHAPES) {
+                return null;
+            }
+            partialShapes.add(shape.move(baseX + x, baseY + y, baseZ + z));
+        }
+
+        VoxelShape merged = hasFullBlocks ? new ArrayVoxelShape(fullBlocks, coordinates(baseX), coordinates(baseY), coordinates(baseZ)) : Shapes.empty();
+        for (final VoxelShape shape : partialShapes) {
+            merged = Shapes.joinUnoptimized(merged, shape, BooleanOp.OR);
+        }
+        return merged;
+    }
+
+    private static DoubleArrayList coordinates(int base) {
+        final double[] coordinates = new double[17];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = base + i;
+        }
+        return DoubleArrayList.wrap(coordinates);
+    }
+
+    private static final class Entry {
+        private final LevelChunkSection section;
+        private final int version;
+        private boolean merged;
+        private @Nullable VoxelShape shape;
+
+        private Entry(LevelChunkSection section, int version) {
+            this.section = section;
+            this.version = version;
+        }
+    }
+}
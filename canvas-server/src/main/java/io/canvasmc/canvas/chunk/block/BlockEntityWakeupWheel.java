@@ -0,0 +1,156 @@
+package io.canvasmc.canvas.chunk.block;
+
+import io.canvasmc.canvas.Config;
+import io.papermc.paper.threadedregions.RegionizedWorldData;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.TickingBlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-region parking for sleeping block entities.
+ * <p>
+ * A sleeping ticker is parked here and its wrapper is dropped from the region's block entity ticker list the next
+ * time the list is walked, so idle furnaces, brewing stands and the like are no longer visited every tick. Parked
+ * wrappers stay out of the list until the block entity wakes itself up. Timed sleeps are not parked, their invoker
+ * stays listed and wakes the block entity once due. A parked wrapper that gets rebound to anything else behind our
+ * back is dropped if its ticker was removed and put back into the list otherwise, by a sweep every few seconds.
+ */
+public final class BlockEntityWakeupWheel {
+    private static final long SWEEP_INTERVAL = 256L;
+
+    private final Consumer<TickingBlockEntity> relist;
+    // every parked wrapper, the ones still in the ticker list are also in pendingRemoval
+    private final ReferenceOpenHashSet<LevelChunk.RebindableTickingBlockEntityWrapper> parked = new ReferenceOpenHashSet<>();
+    private final ReferenceOpenHashSet<LevelChunk.RebindableTickingBlockEntityWrapper> pendingRemoval = new ReferenceOpenHashSet<>();
+    private long nextSweep = Long.MIN_VALUE;
+
+    public BlockEntityWakeupWheel(RegionizedWorldData worldData) {
+        this(ticker -> worldData.world.addBlockEntityTicker(ticker));
+    }
+
+    BlockEntityWakeupWheel(Consumer<TickingBlockEntity> relist) {
+        this.relist = relist;
+    }
+
+    private static @Nullable BlockEntityWakeupWheel of(@Nullable Level level) {
+        if (!Config.INSTANCE.chunks.parkSleepingBlockEntities || !(level instanceof ServerLevel serverLevel)) {
+            return null;
+        }
+        final RegionizedWorldData worldData = serverLevel.getCurrentWorldData();
+        return worldData == null ? null : worldData.blockEntityWakeupWheel;
+    }
+
+    public static void sleep(@NotNull BlockEntity blockEntity, LevelChunk.RebindableTickingBlockEntityWrapper wrapper) {
+        final BlockEntityWakeupWheel wheel = of(blockEntity.getLevel());
+        if (wheel != null) {
+            wheel.park(wrapper);
+        }
+    }
+
+    public static void wake(@Nullable Level level, LevelChunk.RebindableTickingBlockEntityWrapper wrapper) {
+        final BlockEntityWakeupWheel wheel = of(level);
+        if (wheel != null) {
+            wheel.unpark(wrapper);
+        }
+    }
+
+    void park(LevelChunk.RebindableTickingBlockEntityWrapper wrapper) {
+        if (this.parked.add(wrapper)) {
+            this.pendingRemoval.add(wrapper);
+        }
+    }
+
+    void unpark(LevelChunk.RebindableTickingBlockEntityWrapper wrapper) {
+        if (!this.parked.remove(wrapper)) {
+            return;
+        }
+        if (!this.pendingRemoval.remove(wrapper)) {
+            this.relist.accept(wrapper);
+        }
+    }
+
+    /**
+     * Called for every ticker while walking the ticker list, returns whether it was parked and should be removed
+     */
+    public boolean unlist(TickingBlockEntity ticker) {
+        return !this.pendingRemoval.isEmpty() && this.pendingRemoval.remove(ticker);
+    }
+
+    /**
+     * Sweeps the parked wrappers every {@link #SWEEP_INTERVAL} ticks, must run before the ticker list is walked
+     */
+    public void advance(long now) {
+        if (now >= this.nextSweep) {
+            this.nextSweep = now + SWEEP_INTERVAL;
+            this.sweep();
+        }
+    }
+
+    // drops wrappers rebound to a removed ticker and wakes the ones rebound to a real ticker while parked
+    private void sweep() {
+        for (final Iterator<LevelChunk.RebindableTickingBlockEntityWrapper> iterator = this.parked.iterator(); iterator.hasNext(); ) {
+            final LevelChunk.RebindableTickingBlockEntityWrapper wrapper = iterator.next();
+            final TickingBlockEntity ticker = wrapper.ticker;
+            if (ticker instanceof SleepingBlockEntity.SleepingTicker) {
+                continue;
+            }
+            iterator.remove();
+            if (!this.pendingRemoval.remove(wrapper) && !ticker.isRemoved()) {
+                this.relist.accept(wrapper);
+            }
+        }
+    }
+
+    public void merge(@NotNull BlockEntityWakeupWheel into, long fromTickOffset, long fromRedstoneTimeOffset) {
+        for (final LevelChunk.RebindableTickingBlockEntityWrapper wrapper : this.parked) {
+            into.parked.add(wrapper);
+            if (this.pendingRemoval.contains(wrapper)) {
+                into.pendingRemoval.add(wrapper); // still listed, the ticker list merge updates its ticks
+                continue;
+            }
+            final BlockEntity blockEntity = blockEntity(wrapper.ticker);
+            if (blockEntity != null) {
+                blockEntity.updateTicks(fromTickOffset, fromRedstoneTimeOffset);
+            }
+        }
+    }
+
+    public void split(@NotNull RegionLookup regionLookup) {
+        for (final LevelChunk.RebindableTickingBlockEntityWrapper wrapper : this.parked) {
+            final TickingBlockEntity ticker = wrapper.ticker;
+            final BlockEntity blockEntity = blockEntity(ticker);
+            // a wrapper rebound behind our back goes along with its ticker, the sweep of its new region relists it
+            final BlockPos pos = blockEntity != null ? blockEntity.getBlockPos() : ticker.isRemoved() ? null : ticker.getPos();
+            if (pos == null) {
+                continue; // stale, the sweep would have dropped it
+            }
+            final BlockEntityWakeupWheel into = regionLookup.get(pos.getX() >> 4, pos.getZ() >> 4);
+            if (into != null) {
+                into.parked.add(wrapper);
+                if (this.pendingRemoval.contains(wrapper)) {
+                    into.pendingRemoval.add(wrapper);
+                }
+            }
+        }
+    }
+
+    private static @Nullable BlockEntity blockEntity(TickingBlockEntity ticker) {
+        if (ticker instanceof SleepingBlockEntity.SleepingTicker sleepingTicker) {
+            return sleepingTicker.getTileEntityForRegionOperation();
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    public interface RegionLookup {
+        @Nullable BlockEntityWakeupWheel get(int chunkX, int chunkZ);
+    }
+}
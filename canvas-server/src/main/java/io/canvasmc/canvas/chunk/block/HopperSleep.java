@@ -0,0 +1,86 @@
+package io.canvasmc.canvas.chunk.block;
+
+import io.papermc.paper.threadedregions.RegionizedWorldData;
+import net.minecraft.core.BlockPos;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.world.Container;
+import net.minecraft.world.WorldlyContainerHolder;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.ChestBlock;
+import net.minecraft.world.level.block.HopperBlock;
+import net.minecraft.world.level.block.entity.BaseContainerBlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.ChestBlockEntity;
+import net.minecraft.world.level.block.entity.HopperBlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.ChestType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Decides whether a hopper whose transfer attempt just failed may sleep until something relevant changes.
+ * <p>
+ * A hopper only sleeps when everything it interacts with publishes its changes: block entity containers notify
+ * their listeners from {@link BlockEntity#setChanged()}, block state based containers such as the composter and any
+ * block swap wake the hopper through its neighbour updates, and items falling into the hopper still go through
+ * {@code entityInside}. Anything where entity containers or loose items could show up keeps the hopper polling.
+ */
+public final class HopperSleep {
+
+    private HopperSleep() {
+    }
+
+    public static boolean trySleep(@NotNull Level level, @NotNull BlockPos pos, @NotNull BlockState state, @NotNull HopperBlockEntity hopper, boolean pulls, boolean pushes) {
+        if (!state.getValue(HopperBlock.ENABLED)) {
+            // powering the hopper changes its state, which wakes it up
+            hopper.lithium$startSleeping();
+            return true;
+        }
+        final RegionizedWorldData worldData = level.getCurrentWorldData();
+        if (!worldData.skipHopperEvents || !worldData.skipHopperSearchItemEvents) {
+            return false; // plugins may change their mind about a transfer without any inventory changing
+        }
+        final BlockEntity[] containers = new BlockEntity[4];
+        int count = 0;
+        if (pulls && (count = collect(level, pos.above(), true, containers, count)) == -1) {
+            return false;
+        }
+        if (pushes && (count = collect(level, pos.relative(state.getValue(HopperBlock.FACING)), false, containers, count)) == -1) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            containers[i].canvas$addChangeListener(hopper);
+        }
+        hopper.lithium$startSleeping();
+        return true;
+    }
+
+    // returns the new container count, or -1 if the position may change without notifying the hopper
+    private static int collect(Level level, BlockPos pos, boolean source, BlockEntity[] containers, int count) {
+        final BlockState state = level.getBlockState(pos);
+        if (state.getBlock() instanceof WorldlyContainerHolder) {
+            return count;
+        }
+        if (state.hasBlockEntity()) {
+            final BlockEntity blockEntity = level.getBlockEntity(pos);
+            if (blockEntity instanceof BaseContainerBlockEntity) {
+                containers[count++] = blockEntity;
+                if (blockEntity instanceof ChestBlockEntity && state.getBlock() instanceof ChestBlock && state.getValue(ChestBlock.TYPE) != ChestType.SINGLE) {
+                    final BlockEntity other = level.getBlockEntity(pos.relative(ChestBlock.getConnectedDirection(state)));
+                    if (!(other instanceof ChestBlockEntity)) {
+                        return -1;
+                    }
+                    containers[count++] = other;
+                }
+                return count;
+            }
+            if (blockEntity instanceof Container) {
+                return -1;
+            }
+        }
+        // without a block container, entity containers and item entities are only kept out by a full block
+        if (state.isCollisionShapeFullBlock(level, pos) && (!source || !state.is(BlockTags.DOES_NOT_BLOCK_HOPPERS))) {
+            return count;
+        }
+        return -1;
+    }
+}
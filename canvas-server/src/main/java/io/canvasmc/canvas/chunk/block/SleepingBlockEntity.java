@@ -29,6 +29,7 @@ public interface SleepingBlockEntity {
         }
         this.lithium$setSleepingTicker(tickWrapper.ticker);
         tickWrapper.rebind(new SleepingTicker(this));
+        BlockEntityWakeupWheel.sleep((BlockEntity) this, tickWrapper);
     }
 
     default void sleepOnlyCurrentTick() {
@@ -40,6 +41,8 @@ public interface SleepingBlockEntity {
         Level world = ((BlockEntity) this).getLevel();
         tickWrapper.rebind(new SleepUntilTimeBlockEntityTickInvoker((BlockEntity) this, world.getGameTime() + 1, sleepingTicker));
         this.lithium$setSleepingTicker(null);
+        // the invoker wakes the block entity itself, it has to be listed to tick
+        BlockEntityWakeupWheel.wake(world, tickWrapper);
     }
 
     default void sleepFor(int ticks) {
@@ -51,6 +54,7 @@ public interface SleepingBlockEntity {
         Level world = ((BlockEntity) this).getLevel();
         tickWrapper.rebind(new SleepUntilTimeBlockEntityTickInvoker((BlockEntity) this, world.getGameTime() + ticks, sleepingTicker));
         this.lithium$setSleepingTicker(null);
+        BlockEntityWakeupWheel.wake(world, tickWrapper);
     }
 
     default void wakeUpNow() {
@@ -68,6 +72,7 @@ public interface SleepingBlockEntity {
             return;
         }
         tickWrapper.rebind(delegate);
+        BlockEntityWakeupWheel.wake(((BlockEntity) this).getLevel(), tickWrapper);
     }
 
     default boolean isSleeping() {
@@ -0,0 +1,56 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import com.google.common.collect.MapMaker;
+import io.canvasmc.canvas.Config;
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.levelgen.Aquifer;
+import net.minecraft.world.level.levelgen.PositionalRandomFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded cache of computed aquifer fluid statuses, shared by every chunk generated with the same aquifer random.
+ * <p>
+ * An aquifer grid cell overlaps several chunks and its fluid status only depends on the world's noise router and
+ * fluid picker, so neighbouring chunks generated close together can reuse each other's work. The cache is a
+ * direct-mapped table of immutable entries: lookups and inserts are a single atomic read or write, so it is safe
+ * across worldgen threads without locking, and colliding cells simply overwrite each other.
+ */
+public final class AquiferCellCache {
+    private static final ConcurrentMap<PositionalRandomFactory, AquiferCellCache> CACHES = new MapMaker().weakKeys().makeMap();
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+
+    private AquiferCellCache(final int capacity) {
+        final int size = Mth.smallestEncompassingPowerOfTwo(capacity);
+        this.entries = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param aquiferRandom the aquifer random of the world, unique per {@code RandomState}
+     */
+    public static @NotNull AquiferCellCache of(final @NotNull PositionalRandomFactory aquiferRandom) {
+        return CACHES.computeIfAbsent(aquiferRandom, ignored -> new AquiferCellCache(Config.INSTANCE.chunks.aquiferCellCacheCapacity));
+    }
+
+    private int index(final long location) {
+        return (int) HashCommon.mix(location) & this.mask;
+    }
+
+    public @Nullable Aquifer.FluidStatus get(final long location) {
+        final Entry entry = this.entries.getAcquire(this.index(location));
+        return entry != null && entry.location == location ? entry.status : null;
+    }
+
+    public void put(final long location, final Aquifer.FluidStatus status) {
+        this.entries.setRelease(this.index(location), new Entry(location, status));
+    }
+
+    private record Entry(long location, Aquifer.FluidStatus status) {
+    }
+}
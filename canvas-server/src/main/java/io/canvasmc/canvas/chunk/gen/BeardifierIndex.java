@@ -0,0 +1,133 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import net.minecraft.world.level.levelgen.Beardifier;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.levelgen.structure.pools.JigsawJunction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Buckets the rigid pieces and jigsaw junctions of a {@link Beardifier} by 4x4 block column cells around the
+ * chunk being generated.
+ * <p>
+ * A piece or junction only contributes to the density within the 24 block beard kernel around it horizontally,
+ * so each cell keeps the indices of the candidates whose kernel overlaps it, in their original order. Summing the
+ * contributions of a cell's candidates therefore gives exactly the same result as summing every piece, as the
+ * skipped ones all contribute zero. Samples outside the indexed area return {@code -1} and visit everything.
+ */
+public final class BeardifierIndex {
+    // beard contributions are non-zero for offsets in [-12, 11], bury and encapsulate ones are within that range
+    private static final int KERNEL_BELOW = 12;
+    private static final int KERNEL_ABOVE = 11;
+    private static final int CELL_SHIFT = 2;
+    // the chunk plus the cell corners on its positive edges
+    private static final int CELLS = (16 >> CELL_SHIFT) + 1;
+
+    private final int originX;
+    private final int originZ;
+    private final int[] pieceStarts = new int[CELLS * CELLS + 1];
+    private final int[] pieces;
+    private final int[] junctionStarts = new int[CELLS * CELLS + 1];
+    private final int[] junctions;
+
+    public BeardifierIndex(final int chunkX, final int chunkZ, final Beardifier.Rigid @NotNull [] pieces, final JigsawJunction @NotNull [] junctions) {
+        this.originX = chunkX << 4;
+        this.originZ = chunkZ << 4;
+
+        final int[] pieceMinX = new int[pieces.length];
+        final int[] pieceMaxX = new int[pieces.length];
+        final int[] pieceMinZ = new int[pieces.length];
+        final int[] pieceMaxZ = new int[pieces.length];
+        for (int i = 0; i < pieces.length; i++) {
+            final BoundingBox box = pieces[i].box();
+            pieceMinX[i] = box.minX() - KERNEL_ABOVE;
+            pieceMaxX[i] = box.maxX() + KERNEL_BELOW;
+            pieceMinZ[i] = box.minZ() - KERNEL_ABOVE;
+            pieceMaxZ[i] = box.maxZ() + KERNEL_BELOW;
+        }
+        this.pieces = this.bucket(this.pieceStarts, pieceMinX, pieceMaxX, pieceMinZ, pieceMaxZ);
+
+        final int[] junctionMinX = new int[junctions.length];
+        final int[] junctionMaxX = new int[junctions.length];
+        final int[] junctionMinZ = new int[junctions.length];
+        final int[] junctionMaxZ = new int[junctions.length];
+        for (int i = 0; i < junctions.length; i++) {
+            final JigsawJunction junction = junctions[i];
+            junctionMinX[i] = junction.getSourceX() - KERNEL_BELOW;
+            junctionMaxX[i] = junction.getSourceX() + KERNEL_ABOVE;
+            junctionMinZ[i] = junction.getSourceZ() - KERNEL_BELOW;
+            junctionMaxZ[i] = junction.getSourceZ() + KERNEL_ABOVE;
+        }
+        this.junctions = this.bucket(this.junctionStarts, junctionMinX, junctionMaxX, junctionMinZ, junctionMaxZ);
+    }
+
+    // builds the candidate lists of every cell from the inclusive block ranges of each candidate
+    private int @NotNull [] bucket(final int[] starts, final int[] minX, final int[] maxX, final int[] minZ, final int[] maxZ) {
+        final int[] fill = new int[CELLS * CELLS];
+        for (int i = 0; i < minX.length; i++) {
+            for (int z = this.fromZ(minZ[i]); z <= this.toZ(maxZ[i]); z++) {
+                for (int x = this.fromX(minX[i]); x <= this.toX(maxX[i]); x++) {
+                    fill[z * CELLS + x]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < fill.length; cell++) {
+            starts[cell + 1] = starts[cell] + fill[cell];
+            fill[cell] = starts[cell];
+        }
+        final int[] items = new int[starts[fill.length]];
+        for (int i = 0; i < minX.length; i++) {
+            for (int z = this.fromZ(minZ[i]); z <= this.toZ(maxZ[i]); z++) {
+                for (int x = this.fromX(minX[i]); x <= this.toX(maxX[i]); x++) {
+                    items[fill[z * CELLS + x]++] = i;
+                }
+            }
+        }
+        return items;
+    }
+
+    private int fromX(final int blockX) {
+        return Math.max(0, (blockX - this.originX) >> CELL_SHIFT);
+    }
+
+    private int toX(final int blockX) {
+        return Math.min(CELLS - 1, (blockX - this.originX) >> CELL_SHIFT);
+    }
+
+    private int fromZ(final int blockZ) {
+        return Math.max(0, (blockZ - this.originZ) >> CELL_SHIFT);
+    }
+
+    private int toZ(final int blockZ) {
+        return Math.min(CELLS - 1, (blockZ - this.originZ) >> CELL_SHIFT);
+    }
+
+    public int cell(final int blockX, final int blockZ) {
+        final int x = (blockX - this.originX) >> CELL_SHIFT;
+        final int z = (blockZ - this.originZ) >> CELL_SHIFT;
+        return x < 0 || z < 0 || x >= CELLS || z >= CELLS ? -1 : z * CELLS + x;
+    }
+
+    public int pieceStart(final int cell) {
+        return this.pieceStarts[cell];
+    }
+
+    public int pieceEnd(final int cell) {
+        return this.pieceStarts[cell + 1];
+    }
+
+    public int piece(final int entry) {
+        return this.pieces[entry];
+    }
+
+    public int junctionStart(final int cell) {
+        return this.junctionStarts[cell];
+    }
+
+    public int junctionEnd(final int cell) {
+        return this.junctionStarts[cell + 1];
+    }
+
+    public int junction(final int entry) {
+        return this.junctions[entry];
+    }
+}
@@ -0,0 +1,91 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import java.lang.invoke.MethodHandle;
+import net.minecraft.util.KeyDispatchDataCodec;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.levelgen.DensityFunction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Base class of the hidden classes generated by {@link DensityFunctionCompiler}.
+ * <p>
+ * Everything the compiler could not inline (noises, splines, markers, ...) is kept as a leaf function and passed
+ * to the generated constructor, so visitors such as the {@code NoiseChunk} wrapping still see every marker and can
+ * replace it.
+ * <p>
+ * Compiled functions are encoded as the function they were compiled from, {@code DensityFunctions.DIRECT_CODEC}
+ * swaps them for it through {@link #uncompiled(DensityFunction)}. That function is never a holder, the compiler keeps
+ * holders around the compiled function, so they are still encoded through {@code DensityFunction.HOLDER_HELPER_CODEC}.
+ */
+public abstract class CompiledDensityFunction implements DensityFunction {
+    protected final Template template;
+    protected final DensityFunction[] leaves;
+
+    protected CompiledDensityFunction(final Template template, final DensityFunction[] leaves) {
+        this.template = template;
+        this.leaves = leaves;
+    }
+
+    @Override
+    public @NotNull DensityFunction mapAll(final @NotNull Visitor visitor) {
+        final DensityFunction[] mapped = new DensityFunction[this.leaves.length];
+        boolean changed = false;
+        for (int i = 0; i < mapped.length; ++i) {
+            mapped[i] = this.leaves[i].mapAll(visitor);
+            changed |= mapped[i] != this.leaves[i];
+        }
+        return visitor.apply(changed ? this.template.instantiate(mapped) : this);
+    }
+
+    @Override
+    public double minValue() {
+        return this.template.minValue();
+    }
+
+    @Override
+    public double maxValue() {
+        return this.template.maxValue();
+    }
+
+    @Override
+    public @NotNull KeyDispatchDataCodec<? extends DensityFunction> codec() {
+        return this.template.source().codec();
+    }
+
+    public static @NotNull DensityFunction uncompiled(final @NotNull DensityFunction function) {
+        return function instanceof CompiledDensityFunction compiled ? compiled.template.source() : function;
+    }
+
+    // called from generated code, these match DensityFunctions.Mapped#transform
+
+    public static double square(final double value) {
+        return value * value;
+    }
+
+    public static double cube(final double value) {
+        return value * value * value;
+    }
+
+    public static double halfNegative(final double value) {
+        return value > 0.0 ? value : value * 0.5;
+    }
+
+    public static double quarterNegative(final double value) {
+        return value > 0.0 ? value : value * 0.25;
+    }
+
+    public static double squeeze(final double value) {
+        final double d = Mth.clamp(value, -1.0, 1.0);
+        return d / 2.0 - d * d * d / 24.0;
+    }
+
+    public record Template(MethodHandle constructor, DensityFunction source, double minValue, double maxValue) {
+        public @NotNull CompiledDensityFunction instantiate(final DensityFunction[] leaves) {
+            try {
+                return (CompiledDensityFunction) this.constructor.invoke(this, leaves);
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException("Failed to instantiate compiled density function", throwable);
+            }
+        }
+    }
+}
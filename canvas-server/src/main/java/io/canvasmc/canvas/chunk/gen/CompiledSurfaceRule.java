@@ -0,0 +1,135 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.List;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.SurfaceRules;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A surface rule tree flattened into a single instruction list.
+ * <p>
+ * Sequences are laid out one after another and a failing test jumps past the code of its follow-up, so evaluating
+ * a block is a single loop instead of a walk through nested sequence and test objects. Rules following one that
+ * always yields a state are unreachable and dropped. Conditions keep their own per-column and per-Y memoization.
+ */
+public final class CompiledSurfaceRule implements SurfaceRules.SurfaceRule {
+    private static final byte TEST = 0;
+    private static final byte TEST_NOT = 1;
+    private static final byte STATE = 2;
+    private static final byte APPLY = 3;
+
+    private final byte[] ops;
+    private final Object[] operands;
+    private final int[] jumps;
+    private final boolean alwaysApplies;
+
+    private CompiledSurfaceRule(final byte[] ops, final Object[] operands, final int[] jumps, final boolean alwaysApplies) {
+        this.ops = ops;
+        this.operands = operands;
+        this.jumps = jumps;
+        this.alwaysApplies = alwaysApplies;
+    }
+
+    public static @NotNull CompiledSurfaceRule compile(final @NotNull List<SurfaceRules.SurfaceRule> sequence) {
+        final Builder builder = new Builder();
+        final boolean alwaysApplies = builder.sequence(sequence);
+        return new CompiledSurfaceRule(builder.ops.toByteArray(), builder.operands.toArray(), builder.jumps.toIntArray(), alwaysApplies);
+    }
+
+    @Override
+    public @Nullable BlockState tryApply(final int x, final int y, final int z) {
+        final byte[] ops = this.ops;
+        final Object[] operands = this.operands;
+        int pc = 0;
+        while (pc < ops.length) {
+            switch (ops[pc]) {
+                case TEST -> {
+                    if (!((SurfaceRules.Condition) operands[pc]).test()) {
+                        pc = this.jumps[pc];
+                        continue;
+                    }
+                }
+                case TEST_NOT -> {
+                    if (((SurfaceRules.Condition) operands[pc]).test()) {
+                        pc = this.jumps[pc];
+                        continue;
+                    }
+                }
+                case STATE -> {
+                    return (BlockState) operands[pc];
+                }
+                default -> {
+                    final BlockState state = ((SurfaceRules.SurfaceRule) operands[pc]).tryApply(x, y, z);
+                    if (state != null) {
+                        return state;
+                    }
+                }
+            }
+            pc++;
+        }
+        return null;
+    }
+
+    private static final class Builder {
+        private final ByteArrayList ops = new ByteArrayList();
+        private final ObjectArrayList<Object> operands = new ObjectArrayList<>();
+        private final IntArrayList jumps = new IntArrayList();
+
+        // each method returns whether the emitted code always yields a state
+        private boolean sequence(final @NotNull List<SurfaceRules.SurfaceRule> rules) {
+            for (int i = 0, size = rules.size(); i < size; i++) {
+                if (this.rule(rules.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean rule(final SurfaceRules.SurfaceRule rule) {
+            switch (rule) {
+                case SurfaceRules.StateRule stateRule -> {
+                    this.emit(STATE, stateRule.state(), -1);
+                    return true;
+                }
+                case SurfaceRules.SequenceRule sequenceRule -> {
+                    return this.sequence(sequenceRule.rules());
+                }
+                case SurfaceRules.TestRule testRule -> {
+                    SurfaceRules.Condition condition = testRule.condition();
+                    boolean negated = false;
+                    while (condition instanceof SurfaceRules.NotCondition notCondition) {
+                        condition = notCondition.target();
+                        negated = !negated;
+                    }
+                    final int test = this.emit(negated ? TEST_NOT : TEST, condition, -1);
+                    this.rule(testRule.followup());
+                    this.jumps.set(test, this.ops.size());
+                    return false;
+                }
+                case CompiledSurfaceRule compiled -> {
+                    final int offset = this.ops.size();
+                    for (int i = 0; i < compiled.ops.length; i++) {
+                        final byte op = compiled.ops[i];
+                        this.emit(op, compiled.operands[i], op == TEST || op == TEST_NOT ? compiled.jumps[i] + offset : -1);
+                    }
+                    return compiled.alwaysApplies;
+                }
+                default -> {
+                    this.emit(APPLY, rule, -1);
+                    return false;
+                }
+            }
+        }
+
+        private int emit(final byte op, final Object operand, final int jump) {
+            this.ops.add(op);
+            this.operands.add(operand);
+            this.jumps.add(jump);
+            return this.ops.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import com.mojang.logging.LogUtils;
+import io.canvasmc.canvas.Config;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.levelgen.DensityFunction;
+import net.minecraft.world.level.levelgen.DensityFunctions;
+import net.minecraft.world.level.levelgen.NoiseRouter;
+import org.jetbrains.annotations.NotNull;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Compiles the arithmetic parts of density function graphs into hidden classes.
+ * <p>
+ * Constants, clamps, mapped transforms, binary operations, range choices and y gradients are inlined into a single
+ * generated {@code compute} and {@code fillArray}. Constant subtrees are folded, and subexpressions that are always
+ * evaluated and used more than once are computed once per sample. Anything else, most importantly noises and
+ * markers, becomes a leaf that is called as before. The wrapped function of every marker is compiled on its own,
+ * so the caching and interpolation done by {@code NoiseChunk} is unaffected.
+ * <p>
+ * The generated code performs the same floating point operations in the same order as the interpreted functions,
+ * the results are identical.
+ */
+public final class DensityFunctionCompiler {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final DensityFunction.FunctionContext ORIGIN = new DensityFunction.SinglePointContext(0, 0, 0);
+
+    private static final String BASE = Type.getInternalName(CompiledDensityFunction.class);
+    private static final String GENERATED = BASE + "$Generated";
+    private static final String DENSITY_FUNCTION = Type.getInternalName(DensityFunction.class);
+    private static final String FUNCTION_CONTEXT = Type.getInternalName(DensityFunction.FunctionContext.class);
+    private static final String CONTEXT_PROVIDER = Type.getInternalName(DensityFunction.ContextProvider.class);
+    private static final String MTH = Type.getInternalName(Mth.class);
+    private static final String LEAF_DESC = "L" + DENSITY_FUNCTION + ";";
+    private static final String CONSTRUCTOR_DESC = "(" + Type.getDescriptor(CompiledDensityFunction.Template.class) + "[" + LEAF_DESC + ")V";
+    private static final String COMPUTE_DESC = "(L" + FUNCTION_CONTEXT + ";)D";
+    private static final String FILL_ARRAY_DESC = "([DL" + CONTEXT_PROVIDER + ";)V";
+    private static final String FOR_INDEX_DESC = "(I)L" + FUNCTION_CONTEXT + ";";
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class, CompiledDensityFunction.Template.class, DensityFunction[].class);
+
+    // generated classes only depend on the shape of a graph, worlds using the same generator settings share them
+    private static final Map<String, MethodHandle> CLASSES = new ConcurrentHashMap<>();
+
+    private final Map<DensityFunction, DensityFunction> compiled = new HashMap<>();
+
+    private DensityFunctionCompiler() {
+    }
+
+    public static @NotNull NoiseRouter compileRouter(final @NotNull NoiseRouter router) {
+        if (!Config.INSTANCE.chunks.compileDensityFunctions) {
+            return router;
+        }
+        final long start = System.nanoTime();
+        final DensityFunctionCompiler compiler = new DensityFunctionCompiler();
+        final NoiseRouter compiledRouter = new NoiseRouter(
+            compiler.compile(router.barrierNoise()),
+            compiler.compile(router.fluidLevelFloodednessNoise()),
+            compiler.compile(router.fluidLevelSpreadNoise()),
+            compiler.compile(router.lavaNoise()),
+            compiler.compile(router.temperature()),
+            compiler.compile(router.vegetation()),
+            compiler.compile(router.continents()),
+            compiler.compile(router.erosion()),
+            compiler.compile(router.depth()),
+            compiler.compile(router.ridges()),
+            compiler.compile(router.initialDensityWithoutJaggedness()),
+            compiler.compile(router.finalDensity()),
+            compiler.compile(router.veinToggle()),
+            compiler.compile(router.veinRidged()),
+            compiler.compile(router.veinGap())
+        );
+        LOGGER.debug("Compiled noise router with {} density functions in {}ms", compiler.compiled.size(), (System.nanoTime() - start) / 1_000_000L);
+        return compiledRouter;
+    }
+
+    private DensityFunction compile(final DensityFunction function) {
+        // no computeIfAbsent, compiling a function recursively compiles the functions wrapped by its markers
+        DensityFunction result = this.compiled.get(function);
+        if (result == null) {
+            result = this.compileNew(function);
+            this.compiled.put(function, result);
+        }
+        return result;
+    }
+
+    private DensityFunction compileNew(final DensityFunction function) {
+        if (function instanceof DensityFunctions.HolderHolder holder) {
+            // the holder is encoded in place of its function, a reference has to stay a reference
+            if (holder.function().kind() != Holder.Kind.DIRECT) {
+                return function;
+            }
+            final DensityFunction value = holder.function().value();
+            final DensityFunction compiledValue = this.compile(value);
+            return compiledValue == value ? function : new DensityFunctions.HolderHolder(Holder.direct(compiledValue));
+        }
+        final List<DensityFunction> leaves = new ArrayList<>();
+        final Node root = this.build(function, leaves, new HashMap<>());
+        if (root instanceof Const constant) {
+            return DensityFunctions.constant(constant.value());
+        }
+        if (root instanceof Leaf leaf) {
+            return leaves.get(leaf.index());
+        }
+        try {
+            final String key = root.toString();
+            MethodHandle constructor = CLASSES.get(key);
+            if (constructor == null) {
+                constructor = CLASSES.computeIfAbsent(key, ignored -> define(root, leaves.size()));
+            }
+            return new CompiledDensityFunction.Template(constructor, function, function.minValue(), function.maxValue()).instantiate(leaves.toArray(new DensityFunction[0]));
+        } catch (final Throwable throwable) {
+            LOGGER.warn("Failed to compile density function, it will be interpreted instead", throwable);
+            return function;
+        }
+    }
+
+    private Node build(final DensityFunction function, final List<DensityFunction> leaves, final Map<DensityFunction, Integer> leafIndices) {
+        switch (function) {
+            case DensityFunctions.HolderHolder holder -> {
+                return this.build(holder.function().value(), leaves, leafIndices);
+            }
+            case DensityFunctions.Constant constant -> {
+                return new Const(constant.value());
+            }
+            case DensityFunctions.YClampedGradient gradient -> {
+                return new YGradient(gradient.fromY(), gradient.toY(), gradient.fromValue(), gradient.toValue());
+            }
+            case DensityFunctions.Ap2 ap2 -> {
+                final BinaryOp op = BinaryOp.byName(ap2.type().name());
+                if (op != null) {
+                    final Node a = this.build(ap2.argument1(), leaves, leafIndices);
+                    final Node b = this.build(ap2.argument2(), leaves, leafIndices);
+                    if (a instanceof Const && b instanceof Const) {
+                        return fold(function);
+                    }
+                    return new Binary(op, a, b, ap2.argument2().minValue(), ap2.argument2().maxValue());
+                }
+            }
+            case DensityFunctions.MulOrAdd mulOrAdd -> {
+                final Node input = this.build(mulOrAdd.input(), leaves, leafIndices);
+                if (input instanceof Const) {
+                    return fold(function);
+                }
+                return new Affine("MUL".equals(mulOrAdd.specificType().name()), input, mulOrAdd.argument());
+            }
+            case DensityFunctions.Mapped mapped -> {
+                final UnaryOp op = UnaryOp.byName(mapped.type().name());
+                if (op != null) {
+                    final Node input = this.build(mapped.input(), leaves, leafIndices);
+                    if (input instanceof Const) {
+                        return fold(function);
+                    }
+                    return new Unary(op, input);
+                }
+            }
+            case DensityFunctions.Clamp clamp -> {
+                final Node input = this.build(clamp.input(), leaves, leafIndices);
+                if (input instanceof Const) {
+                    return fold(function);
+                }
+                return new Clamp(input, clamp.minValue(), clamp.maxValue());
+            }
+            case DensityFunctions.RangeChoice choice -> {
+                final Node input = this.build(choice.input(), leaves, leafIndices);
+                final Node inRange = this.build(choice.whenInRange(), leaves, leafIndices);
+                final Node outOfRange = this.build(choice.whenOutOfRange(), leaves, leafIndices);
+                if (input instanceof Const && inRange instanceof Const && outOfRange instanceof Const) {
+                    return fold(function);
+                }
+                return new Choice(input, choice.minInclusive(), choice.maxExclusive(), inRange, outOfRange);
+            }
+            default -> {
+            }
+        }
+
+        DensityFunction leaf = function;
+        if (function instanceof DensityFunctions.Marker marker) {
+            leaf = new DensityFunctions.Marker(marker.type(), this.compile(marker.wrapped()));
+        }
+        // equal leaves compute equal values, share them
+        Integer index = leafIndices.get(leaf);
+        if (index == null) {
+            index = leaves.size();
+            leaves.add(leaf);
+            leafIndices.put(leaf, index);
+        }
+        return new Leaf(index);
+    }
+
+    private static Const fold(final DensityFunction function) {
+        // constant subtrees do not depend on the position
+        return new Const(function.compute(ORIGIN));
+    }
+
+    private static MethodHandle define(final Node root, final int leafCount) {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(final String type1, final String type2) {
+                return "java/lang/Object";
+            }
+        };
+        writer.visit(V21, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, GENERATED, null, BASE, null);
+        for (int i = 0; i < leafCount; ++i) {
+            writer.visitField(ACC_PRIVATE | ACC_FINAL, "leaf" + i, LEAF_DESC, null, null).visitEnd();
+        }
+
+        final MethodVisitor constructor = writer.visitMethod(0, "<init>", CONSTRUCTOR_DESC, null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitVarInsn(ALOAD, 1);
+        constructor.visitVarInsn(ALOAD, 2);
+        constructor.visitMethodInsn(INVOKESPECIAL, BASE, "<init>", CONSTRUCTOR_DESC, false);
+        for (int i = 0; i < leafCount; ++i) {
+            constructor.visitVarInsn(ALOAD, 0);
+            constructor.visitVarInsn(ALOAD, 2);
+            constructor.visitLdcInsn(i);
+            constructor.visitInsn(AALOAD);
+            constructor.visitFieldInsn(PUTFIELD, GENERATED, "leaf" + i, LEAF_DESC);
+        }
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        final Generator generator = new Generator(root, leafCount);
+        generator.generateCompute(writer.visitMethod(ACC_PUBLIC, "compute", COMPUTE_DESC, null, null));
+        generator.generateFillArray(writer.visitMethod(ACC_PUBLIC, "fillArray", FILL_ARRAY_DESC, null, null));
+        writer.visitEnd();
+
+        try {
+            final MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(writer.toByteArray(), true);
+            return lookup.findConstructor(lookup.lookupClass(), CONSTRUCTOR_TYPE);
+        } catch (final ReflectiveOperationException exception) {
+            throw new IllegalStateException("Failed to define compiled density function", exception);
+        }
+    }
+
+    private sealed interface Node permits Const, Leaf, YGradient, Unary, Clamp, Affine, Binary, Choice {
+    }
+
+    private record Const(double value) implements Node {
+    }
+
+    private record Leaf(int index) implements Node {
+    }
+
+    private record YGradient(int fromY, int toY, double fromValue, double toValue) implements Node {
+    }
+
+    private record Unary(UnaryOp op, Node input) implements Node {
+    }
+
+    private record Clamp(Node input, double min, double max) implements Node {
+    }
+
+    private record Affine(boolean multiply, Node input, double argument) implements Node {
+    }
+
+    // bMin and bMax are only used to skip evaluating b, any valid bound produces the same result
+    private record Binary(BinaryOp op, Node a, Node b, double bMin, double bMax) implements Node {
+    }
+
+    private record Choice(Node input, double minInclusive, double maxExclusive, Node inRange, Node outOfRange) implements Node {
+    }
+
+    private enum UnaryOp {
+        ABS, SQUARE, CUBE, HALF_NEGATIVE, QUARTER_NEGATIVE, SQUEEZE;
+
+        static UnaryOp byName(final String name) {
+            for (final UnaryOp op : values()) {
+                if (op.name().equals(name)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    private enum BinaryOp {
+        ADD, MUL, MIN, MAX;
+
+        static BinaryOp byName(final String name) {
+            for (final BinaryOp op : values()) {
+                if (op.name().equals(name)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Generator {
+        private static final int COMPUTE_CONTEXT = 1;
+        private static final int FILL_ARRAY = 1;
+        private static final int FILL_PROVIDER = 2;
+        private static final int FILL_LENGTH = 3;
+        private static final int FILL_INDEX = 4;
+
+        private final Node root;
+        private final int leafCount;
+        private final Map<Node, Integer> uses = new HashMap<>();
+        private final Set<Node> eager = new HashSet<>();
+        // nodes that are always evaluated and used more than once, in evaluation order
+        private final List<Node> hoisted = new ArrayList<>();
+
+        private MethodVisitor method;
+        private boolean fillArray;
+        private int nextLocal;
+        private Map<Node, Integer> locals;
+        private int[] leafArrays;
+
+        private Generator(final Node root, final int leafCount) {
+            this.root = root;
+            this.leafCount = leafCount;
+            this.analyze(root, true);
+            this.collectHoisted(root, new HashSet<>());
+        }
+
+        private void analyze(final Node node, final boolean eager) {
+            this.uses.merge(node, 1, Integer::sum);
+            if (eager) {
+                this.eager.add(node);
+            }
+            switch (node) {
+                case Unary unary -> this.analyze(unary.input(), eager);
+                case Clamp clamp -> this.analyze(clamp.input(), eager);
+                case Affine affine -> this.analyze(affine.input(), eager);
+                case Binary binary -> {
+                    this.analyze(binary.a(), eager);
+                    this.analyze(binary.b(), eager && binary.op() == BinaryOp.ADD);
+                }
+                case Choice choice -> {
+                    this.analyze(choice.input(), eager);
+                    this.analyze(choice.inRange(), false);
+                    this.analyze(choice.outOfRange(), false);
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void collectHoisted(final Node node, final Set<Node> visited) {
+            if (!visited.add(node)) {
+                return;
+            }
+            switch (node) {
+                case Unary unary -> this.collectHoisted(unary.input(), visited);
+                case Clamp clamp -> this.collectHoisted(clamp.input(), visited);
+                case Affine affine -> this.collectHoisted(affine.input(), visited);
+                case Binary binary -> {
+                    this.collectHoisted(binary.a(), visited);
+                    if (binary.op() == BinaryOp.ADD) {
+                        this.collectHoisted(binary.b(), visited);
+                    }
+                }
+                case Choice choice -> this.collectHoisted(choice.input(), visited);
+                default -> {
+                }
+            }
+            if (!(node instanceof Const) && this.uses.get(node) > 1) {
+                this.hoisted.add(node);
+            }
+        }
+
+        private void generateCompute(final MethodVisitor method) {
+            this.method = method;
+            this.fillArray = false;
+            this.nextLocal = 2;
+            this.locals = new HashMap<>();
+            method.visitCode();
+            this.emitHoisted();
+            this.emit(this.root);
+            method.visitInsn(DRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        private void generateFillArray(final MethodVisitor method) {
+            this.method = method;
+            this.fillArray = true;
+            this.nextLocal = FILL_INDEX + 1;
+            this.locals = new HashMap<>();
+            method.visitCode();
+            method.visitVarInsn(ALOAD, FILL_ARRAY);
+            method.visitInsn(ARRAYLENGTH);
+            method.visitVarInsn(ISTORE, FILL_LENGTH);
+
+            // leaves that are always evaluated are filled in bulk, so noises and caches keep their batched fill paths
+            this.leafArrays = new int[this.leafCount];
+            Arrays.fill(this.leafArrays, -1);
+            for (int i = 0; i < this.leafCount; ++i) {
+                if (!this.eager.contains(new Leaf(i))) {
+                    continue;
+                }
+                final int local = this.nextLocal++;
+                this.leafArrays[i] = local;
+                method.visitVarInsn(ILOAD, FILL_LENGTH);
+                method.visitIntInsn(NEWARRAY, T_DOUBLE);
+                method.visitVarInsn(ASTORE, local);
+                method.visitVarInsn(ALOAD, 0);
+                method.visitFieldInsn(GETFIELD, GENERATED, "leaf" + i, LEAF_DESC);
+                method.visitVarInsn(ALOAD, local);
+                method.visitVarInsn(ALOAD, FILL_PROVIDER);
+                method.visitMethodInsn(INVOKEINTERFACE, DENSITY_FUNCTION, "fillArray", FILL_ARRAY_DESC, true);
+            }
+
+            final Label loop = new Label();
+            final Label end = new Label();
+            method.visitInsn(ICONST_0);
+            method.visitVarInsn(ISTORE, FILL_INDEX);
+            method.visitLabel(loop);
+            method.visitVarInsn(ILOAD, FILL_INDEX);
+            method.visitVarInsn(ILOAD, FILL_LENGTH);
+            method.visitJumpInsn(IF_ICMPGE, end);
+            this.emitHoisted();
+            method.visitVarInsn(ALOAD, FILL_ARRAY);
+            method.visitVarInsn(ILOAD, FILL_INDEX);
+            this.emit(this.root);
+            method.visitInsn(DASTORE);
+            method.visitIincInsn(FILL_INDEX, 1);
+            method.visitJumpInsn(GOTO, loop);
+            method.visitLabel(end);
+            method.visitInsn(RETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        private void emitHoisted() {
+            for (final Node node : this.hoisted) {
+                this.emit(node);
+                final int local = this.newDoubleLocal();
+                this.method.visitVarInsn(DSTORE, local);
+                this.locals.put(node, local);
+            }
+        }
+
+        private int newDoubleLocal() {
+            final int local = this.nextLocal;
+            this.nextLocal += 2;
+            return local;
+        }
+
+        private void emitContext() {
+            if (this.fillArray) {
+                this.method.visitVarInsn(ALOAD, FILL_PROVIDER);
+                this.method.visitVarInsn(ILOAD, FILL_INDEX);
+                this.method.visitMethodInsn(INVOKEINTERFACE, CONTEXT_PROVIDER, "forIndex", FOR_INDEX_DESC, true);
+            } else {
+                this.method.visitVarInsn(ALOAD, COMPUTE_CONTEXT);
+            }
+        }
+
+        private void emit(final Node node) {
+            final Integer local = this.locals.get(node);
+            if (local != null) {
+                this.method.visitVarInsn(DLOAD, local);
+                return;
+            }
+            final MethodVisitor method = this.method;
+            switch (node) {
+                case Const constant -> method.visitLdcInsn(constant.value());
+                case Leaf leaf -> {
+                    if (this.fillArray && this.leafArrays[leaf.index()] != -1) {
+                        method.visitVarInsn(ALOAD, this.leafArrays[leaf.index()]);
+                        method.visitVarInsn(ILOAD, FILL_INDEX);
+                        method.visitInsn(DALOAD);
+                    } else {
+                        method.visitVarInsn(ALOAD, 0);
+                        method.visitFieldInsn(GETFIELD, GENERATED, "leaf" + leaf.index(), LEAF_DESC);
+                        this.emitContext();
+                        method.visitMethodInsn(INVOKEINTERFACE, DENSITY_FUNCTION, "compute", COMPUTE_DESC, true);
+                    }
+                }
+                case YGradient gradient -> {
+                    this.emitContext();
+                    method.visitMethodInsn(INVOKEINTERFACE, FUNCTION_CONTEXT, "blockY", "()I", true);
+                    method.visitInsn(I2D);
+                    method.visitLdcInsn((double) gradient.fromY());
+                    method.visitLdcInsn((double) gradient.toY());
+                    method.visitLdcInsn(gradient.fromValue());
+                    method.visitLdcInsn(gradient.toValue());
+                    method.visitMethodInsn(INVOKESTATIC, MTH, "clampedMap", "(DDDDD)D", false);
+                }
+                case Unary unary -> {
+                    this.emit(unary.input());
+                    switch (unary.op()) {
+                        case ABS -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "abs", "(D)D", false);
+                        case SQUARE -> method.visitMethodInsn(INVOKESTATIC, BASE, "square", "(D)D", false);
+                        case CUBE -> method.visitMethodInsn(INVOKESTATIC, BASE, "cube", "(D)D", false);
+                        case HALF_NEGATIVE -> method.visitMethodInsn(INVOKESTATIC, BASE, "halfNegative", "(D)D", false);
+                        case QUARTER_NEGATIVE -> method.visitMethodInsn(INVOKESTATIC, BASE, "quarterNegative", "(D)D", false);
+                        case SQUEEZE -> method.visitMethodInsn(INVOKESTATIC, BASE, "squeeze", "(D)D", false);
+                    }
+                }
+                case Clamp clamp -> {
+                    this.emit(clamp.input());
+                    method.visitLdcInsn(clamp.min());
+                    method.visitLdcInsn(clamp.max());
+                    method.visitMethodInsn(INVOKESTATIC, MTH, "clamp", "(DDD)D", false);
+                }
+                case Affine affine -> {
+                    this.emit(affine.input());
+                    method.visitLdcInsn(affine.argument());
+                    method.visitInsn(affine.multiply() ? DMUL : DADD);
+                }
+                case Binary binary -> this.emitBinary(binary);
+                case Choice choice -> {
+                    final Label outOfRange = new Label();
+                    final Label end = new Label();
+                    final int value = this.newDoubleLocal();
+                    this.emit(choice.input());
+                    method.visitVarInsn(DSTORE, value);
+                    // value >= minInclusive && value < maxExclusive
+                    method.visitVarInsn(DLOAD, value);
+                    method.visitLdcInsn(choice.minInclusive());
+                    method.visitInsn(DCMPL);
+                    method.visitJumpInsn(IFLT, outOfRange);
+                    method.visitVarInsn(DLOAD, value);
+                    method.visitLdcInsn(choice.maxExclusive());
+                    method.visitInsn(DCMPG);
+                    method.visitJumpInsn(IFGE, outOfRange);
+                    this.emit(choice.inRange());
+                    method.visitJumpInsn(GOTO, end);
+                    method.visitLabel(outOfRange);
+                    this.emit(choice.outOfRange());
+                    method.visitLabel(end);
+                }
+            }
+        }
+
+        private void emitBinary(final Binary binary) {
+            final MethodVisitor method = this.method;
+            if (binary.op() == BinaryOp.ADD) {
+                this.emit(binary.a());
+                this.emit(binary.b());
+                method.visitInsn(DADD);
+                return;
+            }
+            final Label evaluate = new Label();
+            final Label end = new Label();
+            final int a = this.newDoubleLocal();
+            this.emit(binary.a());
+            method.visitVarInsn(DSTORE, a);
+            switch (binary.op()) {
+                case MUL -> {
+                    // a == 0.0 ? 0.0 : a * b
+                    method.visitVarInsn(DLOAD, a);
+                    method.visitInsn(DCONST_0);
+                    method.visitInsn(DCMPL);
+                    method.visitJumpInsn(IFNE, evaluate);
+                    method.visitInsn(DCONST_0);
+                    method.visitJumpInsn(GOTO, end);
+                    method.visitLabel(evaluate);
+                    method.visitVarInsn(DLOAD, a);
+                    this.emit(binary.b());
+                    method.visitInsn(DMUL);
+                }
+                case MIN -> {
+                    // a < bMin ? a : Math.min(a, b)
+                    method.visitVarInsn(DLOAD, a);
+                    method.visitLdcInsn(binary.bMin());
+                    method.visitInsn(DCMPG);
+                    method.visitJumpInsn(IFGE, evaluate);
+                    method.visitVarInsn(DLOAD, a);
+                    method.visitJumpInsn(GOTO, end);
+                    method.visitLabel(evaluate);
+                    method.visitVarInsn(DLOAD, a);
+                    this.emit(binary.b());
+                    method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "min", "(DD)D", false);
+                }
+                case MAX -> {
+                    // a > bMax ? a : Math.max(a, b)
+                    method.visitVarInsn(DLOAD, a);
+                    method.visitLdcInsn(binary.bMax());
+                    method.visitInsn(DCMPL);
+                    method.visitJumpInsn(IFLE, evaluate);
+                    method.visitVarInsn(DLOAD, a);
+                    method.visitJumpInsn(GOTO, end);
+                    method.visitLabel(evaluate);
+                    method.visitVarInsn(DLOAD, a);
+                    this.emit(binary.b());
+                    method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "max", "(DD)D", false);
+                }
+                default -> throw new IllegalStateException("Unexpected binary operation " + binary.op());
+            }
+            method.visitLabel(end);
+        }
+    }
+}
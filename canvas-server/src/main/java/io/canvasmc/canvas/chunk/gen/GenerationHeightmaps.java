@@ -0,0 +1,70 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import io.canvasmc.canvas.Config;
+import io.canvasmc.canvas.chunk.CombinedHeightmapUpdate;
+import java.util.EnumSet;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import net.minecraft.world.level.levelgen.Heightmap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps the final heightmaps of a generating chunk up to date from the noise stage onwards, so the features stage
+ * does not have to prime them by scanning every column top-down.
+ * <p>
+ * Noise filling feeds every block it writes, surface and carver writes go through {@link ProtoChunk#setBlockState}.
+ * From the carvers status on, vanilla updates these heightmaps itself and tracking stops.
+ */
+public final class GenerationHeightmaps {
+    private static final EnumSet<Heightmap.Types> TRACKED = EnumSet.of(
+        Heightmap.Types.MOTION_BLOCKING, Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, Heightmap.Types.OCEAN_FLOOR, Heightmap.Types.WORLD_SURFACE
+    );
+
+    private GenerationHeightmaps() {
+    }
+
+    public static void begin(final ChunkAccess chunk) {
+        if (!Config.INSTANCE.chunks.trackGenerationHeightmaps || !(chunk instanceof ProtoChunk protoChunk)) {
+            return;
+        }
+        // the heightmaps must only contain blocks written after this, which is only true for a fresh noise fill
+        if (protoChunk.getPersistedStatus().isOrAfter(ChunkStatus.NOISE) || TRACKED.stream().anyMatch(protoChunk::hasPrimedHeightmap)) {
+            return;
+        }
+        protoChunk.canvas$trackedHeightmaps = new Heightmap[]{
+            protoChunk.getOrCreateHeightmapUnprimed(Heightmap.Types.MOTION_BLOCKING),
+            protoChunk.getOrCreateHeightmapUnprimed(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES),
+            protoChunk.getOrCreateHeightmapUnprimed(Heightmap.Types.OCEAN_FLOOR),
+            protoChunk.getOrCreateHeightmapUnprimed(Heightmap.Types.WORLD_SURFACE)
+        };
+    }
+
+    /**
+     * @param x the x coordinate within the chunk
+     * @param z the z coordinate within the chunk
+     */
+    public static void update(final ChunkAccess chunk, final int x, final int y, final int z, final BlockState state) {
+        if (chunk instanceof ProtoChunk protoChunk) {
+            final Heightmap[] heightmaps = protoChunk.canvas$trackedHeightmaps;
+            if (heightmaps != null && !protoChunk.getPersistedStatus().isOrAfter(ChunkStatus.CARVERS)) {
+                CombinedHeightmapUpdate.updateHeightmaps(heightmaps[0], heightmaps[1], heightmaps[2], heightmaps[3], chunk, x, y, z, state);
+            }
+        }
+    }
+
+    /**
+     * Primes the given heightmaps, skipping the ones that were tracked during generation.
+     */
+    public static void primeHeightmaps(final ChunkAccess chunk, final @NotNull EnumSet<Heightmap.Types> types) {
+        if (chunk instanceof ProtoChunk protoChunk && protoChunk.canvas$trackedHeightmaps != null) {
+            protoChunk.canvas$trackedHeightmaps = null;
+            final EnumSet<Heightmap.Types> untracked = EnumSet.copyOf(types);
+            untracked.removeAll(TRACKED);
+            Heightmap.primeHeightmaps(chunk, untracked);
+            return;
+        }
+        Heightmap.primeHeightmaps(chunk, types);
+    }
+}
@@ -0,0 +1,61 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Per-thread scratch buffers used when sampling noise for many positions at once.
+ * Every noise layer writes to its own buffers, so a batch can be passed down the
+ * whole {@code NormalNoise -> PerlinNoise -> ImprovedNoise} chain.
+ */
+public final class NoiseBatch {
+    private static final ThreadLocal<NoiseBatch> BATCHES = ThreadLocal.withInitial(NoiseBatch::new);
+
+    // sampled positions
+    public double[] x = new double[0];
+    public double[] y = new double[0];
+    public double[] z = new double[0];
+    // NormalNoise second sampler
+    public double[] secondX = new double[0];
+    public double[] secondY = new double[0];
+    public double[] secondZ = new double[0];
+    public double[] secondValues = new double[0];
+    // PerlinNoise octaves
+    public double[] octaveX = new double[0];
+    public double[] octaveY = new double[0];
+    public double[] octaveZ = new double[0];
+    public double[] octaveValues = new double[0];
+    // ImprovedNoise cell deltas and corner gradients
+    public double[] deltaX = new double[0];
+    public double[] deltaY = new double[0];
+    public double[] deltaZ = new double[0];
+    public double[] corners = new double[0];
+
+    private NoiseBatch() {
+    }
+
+    public static @NotNull NoiseBatch get(final int count) {
+        final NoiseBatch batch = BATCHES.get();
+        if (batch.x.length < count) {
+            batch.resize(count);
+        }
+        return batch;
+    }
+
+    private void resize(final int count) {
+        this.x = new double[count];
+        this.y = new double[count];
+        this.z = new double[count];
+        this.secondX = new double[count];
+        this.secondY = new double[count];
+        this.secondZ = new double[count];
+        this.secondValues = new double[count];
+        this.octaveX = new double[count];
+        this.octaveY = new double[count];
+        this.octaveZ = new double[count];
+        this.octaveValues = new double[count];
+        this.deltaX = new double[count];
+        this.deltaY = new double[count];
+        this.deltaZ = new double[count];
+        this.corners = new double[count * 8];
+    }
+}
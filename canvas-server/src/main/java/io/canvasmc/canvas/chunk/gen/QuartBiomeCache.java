@@ -0,0 +1,104 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Climate;
+import net.minecraft.world.level.levelgen.NoiseRouter;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-thread cache of the biomes sampled by a multi noise biome source, keyed by quart position.
+ * <p>
+ * The same quart positions are resolved again by the biomes, noise, surface and feature stages, each time running
+ * the full climate sampling and parameter search. Every noise chunk builds its own climate sampler though, so the
+ * cache is keyed by the noise router of the random state the sampler belongs to: the random state binds its own
+ * sampler when it is created, and samplers of unblended noise chunks are bound to the same router in
+ * {@link #bindToRouter(Blender, Climate.Sampler, NoiseRouter)}, so structure placement and chunk generation share
+ * their entries. Unbound samplers only share entries with themselves. A cache only holds results of a single router;
+ * when a thread starts generating for a different one (another world sharing the biome source) the cache is cleared.
+ */
+public final class QuartBiomeCache {
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    // samplers mapped to the router of the random state they belong to
+    private static final Map<Climate.Sampler, NoiseRouter> BOUND_SAMPLERS = new MapMaker().weakKeys().makeMap();
+
+    private final Long2ObjectLinkedOpenHashMap<Holder<Biome>> biomes = new Long2ObjectLinkedOpenHashMap<>();
+    private final int capacity = io.canvasmc.canvas.Config.INSTANCE.chunks.multiNoiseBiomeCacheCapacity;
+    private Climate.Sampler sampler;
+    private Object routerKey;
+
+    /**
+     * Binds the random state's own sampler to the random state's router
+     */
+    public static @NotNull Climate.Sampler bindToRouter(@NotNull Climate.Sampler sampler, @NotNull NoiseRouter router) {
+        if (io.canvasmc.canvas.Config.INSTANCE.chunks.useMultiNoiseBiomeCache) {
+            BOUND_SAMPLERS.put(sampler, router);
+        }
+        return sampler;
+    }
+
+    /**
+     * Lets the cache share the entries of a noise chunk's sampler with the random state's sampler.
+     * <p>
+     * Blended noise chunks interpolate depth towards the old terrain, so their samples can differ from the random
+     * state's and they keep a cache of their own.
+     */
+    public static @NotNull Climate.Sampler bindToRouter(@NotNull Blender blender, @NotNull Climate.Sampler sampler, @NotNull NoiseRouter router) {
+        return blender == Blender.empty() ? bindToRouter(sampler, router) : sampler;
+    }
+
+    private static Object routerOf(Climate.Sampler sampler) {
+        final NoiseRouter bound = BOUND_SAMPLERS.get(sampler);
+        return bound != null ? bound : sampler;
+    }
+
+    private static long key(final int x, final int y, final int z) {
+        // quart x and z fit in 24 bits within the world border, y in 16
+        return ((long) x & 0xFFFFFFL) << 40 | ((long) z & 0xFFFFFFL) << 16 | (long) y & 0xFFFFL;
+    }
+
+    public @Nullable Holder<Biome> get(final int x, final int y, final int z, final Climate.Sampler sampler) {
+        if (this.sampler != sampler) {
+            this.sampler = sampler;
+            final Object routerKey = routerOf(sampler);
+            if (this.routerKey != routerKey) {
+                this.biomes.clear();
+                this.routerKey = routerKey;
+                MISSES.increment();
+                return null;
+            }
+        }
+        final Holder<Biome> biome = this.biomes.getAndMoveToLast(key(x, y, z));
+        (biome == null ? MISSES : HITS).increment();
+        return biome;
+    }
+
+    public void put(final int x, final int y, final int z, final Holder<Biome> biome) {
+        this.biomes.putAndMoveToLast(key(x, y, z), biome);
+        if (this.biomes.size() > this.capacity) {
+            for (int i = Math.max(1, this.capacity / 16); i > 0; i--) {
+                this.biomes.removeFirst();
+            }
+        }
+    }
+
+    public static long hits() {
+        return HITS.sum();
+    }
+
+    public static long misses() {
+        return MISSES.sum();
+    }
+
+    public static void resetStats() {
+        HITS.reset();
+        MISSES.reset();
+    }
+}
@@ -0,0 +1,68 @@
+package io.canvasmc.canvas.chunk.storage;
+
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.DynamicOps;
+import io.canvasmc.canvas.Config;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Block state codec which remembers the result of decoding a palette entry tag.
+ * <p>
+ * Chunk sections store their block state palettes as {@code {Name, Properties}} compounds,
+ * and the same few hundred compounds are decoded over and over again while chunks load.
+ * Only the chunk section palette codec is wrapped. The whole decode result is cached by tag
+ * value, so errors, partial results and the lifecycle are reported exactly like the vanilla
+ * codec would on every decode.
+ */
+public final class CachingBlockStateCodec implements Codec<BlockState> {
+    // per thread, the palettes of a world rarely use more than a few hundred distinct states
+    private static final int MAX_CACHED_ENTRIES = 1024;
+
+    private final Codec<BlockState> delegate;
+    // chunks are loaded on several threads at once, each keeps its own LRU so lookups never contend
+    private final ThreadLocal<Object2ObjectLinkedOpenHashMap<CompoundTag, DataResult<BlockState>>> decoded = ThreadLocal.withInitial(Object2ObjectLinkedOpenHashMap::new);
+
+    public CachingBlockStateCodec(final Codec<BlockState> delegate) {
+        this.delegate = delegate;
+    }
+
+    private static boolean isEnabled() {
+        final Config config = Config.INSTANCE;
+        return config != null && config.chunks.cacheBlockStateDecoding;
+    }
+
+    @Override
+    public <T> DataResult<Pair<BlockState, T>> decode(final DynamicOps<T> ops, final T input) {
+        if (ops != NbtOps.INSTANCE || !(input instanceof CompoundTag tag) || !isEnabled()) {
+            return this.delegate.decode(ops, input);
+        }
+
+        final Object2ObjectLinkedOpenHashMap<CompoundTag, DataResult<BlockState>> decoded = this.decoded.get();
+        DataResult<BlockState> result = decoded.getAndMoveToLast(tag);
+        if (result == null) {
+            result = this.delegate.decode(ops, input).map(Pair::getFirst);
+            if (decoded.size() >= MAX_CACHED_ENTRIES) {
+                decoded.removeFirst();
+            }
+            // the tag belongs to the chunk being read, the key must not change with it
+            decoded.put(tag.copy(), result);
+        }
+        return result.map(state -> Pair.of(state, input));
+    }
+
+    @Override
+    public <T> DataResult<T> encode(final BlockState input, final DynamicOps<T> ops, final T prefix) {
+        return this.delegate.encode(input, ops, prefix);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "CachingBlockStateCodec[" + this.delegate + "]";
+    }
+}
@@ -0,0 +1,109 @@
+package io.canvasmc.canvas.chunk.storage;
+
+import ca.spottedleaf.moonrise.patches.chunk_system.io.MoonriseRegionFileIO;
+import com.mojang.logging.LogUtils;
+import io.canvasmc.canvas.Config;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.Util;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.storage.RegionFile;
+import net.minecraft.world.level.chunk.storage.RegionStorageInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Tracks the full saves in progress per world. While a world has an open batch, its region files defer their header
+ * write (and the release of the sectors it made obsolete) until the last save of that world is done, so a region
+ * file touched by hundreds of chunk writes only rewrites and syncs its header once.
+ * <p>
+ * The chunk writes of a save are only queued for the region file I/O threads, so closing a batch first waits for the
+ * world's pending writes. Only saves that flush wait for this on the calling thread, the others close their batch on
+ * an I/O thread. A region file joins a batch and the batch closes under the batch's lock, so a header is
+ * either deferred to a batch that will still write it or written right away.
+ */
+public final class RegionFileWriteBatcher {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final ConcurrentHashMap<ResourceKey<Level>, Batch> OPEN_BATCHES = new ConcurrentHashMap<>();
+
+    private RegionFileWriteBatcher() {
+    }
+
+    /**
+     * Opens a batch for the world, or joins the one another region's save already opened
+     */
+    public static @Nullable Batch begin(final @NotNull ServerLevel world) {
+        if (!Config.INSTANCE.chunks.batchRegionFileWrites) {
+            return null;
+        }
+        return OPEN_BATCHES.compute(world.dimension(), (dimension, batch) -> batch != null && batch.retain() ? batch : new Batch());
+    }
+
+    public static void end(final @NotNull ServerLevel world, final @Nullable Batch batch, final boolean sync) {
+        if (batch == null) {
+            return;
+        }
+        if (sync) {
+            close(world, batch, true);
+            return;
+        }
+        // a save that does not flush must not stall the region's tick on disk I/O
+        Util.ioPool().execute(() -> close(world, batch, false));
+    }
+
+    private static void close(final ServerLevel world, final Batch batch, final boolean sync) {
+        // the save only queued its chunk writes, they have to reach the region files while the batch is still open
+        MoonriseRegionFileIO.flush(world);
+        final RegionFile[] dirty;
+        synchronized (batch) {
+            if (--batch.saves > 0) {
+                // another region of this world is still saving, it writes the headers once it is done
+                return;
+            }
+            batch.closed = true;
+            OPEN_BATCHES.remove(world.dimension(), batch);
+            dirty = batch.dirty.toArray(new RegionFile[0]);
+        }
+        for (final RegionFile regionFile : dirty) {
+            try {
+                regionFile.canvas$writeDeferredHeader(sync);
+            } catch (final IOException exception) {
+                LOGGER.error("Failed to write deferred header for region file {}", regionFile.getPath(), exception);
+            }
+        }
+    }
+
+    /**
+     * Adds the region file to the open batch of its world, returns whether its header write was deferred
+     */
+    public static boolean defer(final @NotNull RegionFile regionFile, final @NotNull RegionStorageInfo info) {
+        final Batch batch = OPEN_BATCHES.get(info.dimension());
+        return batch != null && batch.add(regionFile);
+    }
+
+    public static final class Batch {
+        private final ReferenceOpenHashSet<RegionFile> dirty = new ReferenceOpenHashSet<>();
+        private int saves = 1;
+        private boolean closed;
+
+        private synchronized boolean retain() {
+            if (this.closed) {
+                return false;
+            }
+            this.saves++;
+            return true;
+        }
+
+        private synchronized boolean add(final RegionFile regionFile) {
+            if (this.closed) {
+                return false;
+            }
+            this.dirty.add(regionFile);
+            return true;
+        }
+    }
+}
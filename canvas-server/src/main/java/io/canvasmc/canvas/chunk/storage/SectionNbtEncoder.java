@@ -0,0 +1,84 @@
+package io.canvasmc.canvas.chunk.storage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.LongStream;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.LongArrayTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Encodes section palettes straight into their tag form, producing exactly what the
+ * {@link net.minecraft.world.level.chunk.storage.SerializableChunkData} codecs produce
+ * without going through the DataFixerUpper record codec machinery for every section.
+ * <p>
+ * The sections still end up in a tag tree, the region file I/O keeps the tag of a pending write to answer chunk loads
+ * racing it, so the chunk is not streamed to the region file without one.
+ */
+public final class SectionNbtEncoder {
+    private static final String PALETTE_KEY = "palette";
+    private static final String DATA_KEY = "data";
+
+    // block state palette entries are encoded once and copied afterwards
+    private static final AtomicReferenceArray<Tag> ENCODED_STATES = new AtomicReferenceArray<>(Block.BLOCK_STATE_REGISTRY.size());
+
+    private SectionNbtEncoder() {
+    }
+
+    public static @NotNull CompoundTag encodeBlockStates(final @NotNull PalettedContainer<BlockState> states) {
+        final PalettedContainerRO.PackedData<BlockState> packed = states.pack(Block.BLOCK_STATE_REGISTRY, states.strategy);
+        final List<BlockState> entries = packed.paletteEntries();
+        final ListTag palette = new ListTag();
+        for (int i = 0, len = entries.size(); i < len; ++i) {
+            palette.add(encodeState(entries.get(i)));
+        }
+        return pack(palette, packed.storage());
+    }
+
+    public static @NotNull CompoundTag encodeBiomes(final @NotNull PalettedContainerRO<Holder<Biome>> biomes, final @NotNull Registry<Biome> biomeRegistry) {
+        final PalettedContainerRO.PackedData<Holder<Biome>> packed = biomes.pack(biomeRegistry.asHolderIdMap(), PalettedContainer.Strategy.SECTION_BIOMES);
+        final List<Holder<Biome>> entries = packed.paletteEntries();
+        final ListTag palette = new ListTag();
+        for (int i = 0, len = entries.size(); i < len; ++i) {
+            final Holder<Biome> holder = entries.get(i);
+            final ResourceKey<Biome> key = holder.unwrapKey().orElseThrow(() -> new IllegalStateException("Unregistered biome cannot be serialized: " + holder));
+            palette.add(StringTag.valueOf(key.location().toString()));
+        }
+        return pack(palette, packed.storage());
+    }
+
+    private static @NotNull CompoundTag pack(final ListTag palette, final @NotNull Optional<LongStream> storage) {
+        final CompoundTag tag = new CompoundTag();
+        // same insertion order as the record codec, keeps the written key order identical
+        tag.put(PALETTE_KEY, palette);
+        storage.ifPresent(data -> tag.put(DATA_KEY, new LongArrayTag(data.toArray())));
+        return tag;
+    }
+
+    private static @NotNull Tag encodeState(final BlockState state) {
+        final int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+        if (id < 0 || id >= ENCODED_STATES.length()) {
+            return BlockState.CODEC.encodeStart(NbtOps.INSTANCE, state).getOrThrow();
+        }
+        Tag encoded = ENCODED_STATES.get(id);
+        if (encoded == null) {
+            encoded = BlockState.CODEC.encodeStart(NbtOps.INSTANCE, state).getOrThrow();
+            ENCODED_STATES.set(id, encoded);
+        }
+        // the section tags may be handed out to chunk loads before the write completes, never share instances
+        return encoded.copy();
+    }
+}
@@ -0,0 +1,66 @@
+package io.canvasmc.canvas.chunk.storage;
+
+import com.mojang.logging.LogUtils;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+
+/**
+ * Progress of the parallel shutdown save, logged periodically with an estimate of the remaining time
+ * based on the average time taken per completed region so far.
+ */
+public final class ShutdownSaveProgress {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5L);
+
+    private final int total;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final long start = System.nanoTime();
+
+    public ShutdownSaveProgress(final int total) {
+        this.total = total;
+    }
+
+    public void complete() {
+        this.completed.incrementAndGet();
+    }
+
+    /**
+     * Waits for the save and returns whether every part of it completed normally.
+     * <p>
+     * An interrupt stops the wait and is not restored, the caller still has to write the remaining data through
+     * interruptible file channels.
+     */
+    public boolean await(final CompletableFuture<?> future) {
+        while (true) {
+            try {
+                future.get(LOG_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+                LOGGER.info("Saved {} regions in {}s", this.total, String.format("%.2f", (System.nanoTime() - this.start) / 1.0E9));
+                return true;
+            } catch (final TimeoutException ignored) {
+                this.log();
+            } catch (final InterruptedException exception) {
+                LOGGER.warn("Interrupted while waiting for the shutdown save to complete, saving level data and players sequentially");
+                return false;
+            } catch (final ExecutionException exception) {
+                LOGGER.error("Shutdown save failed, saving level data and players sequentially", exception.getCause());
+                return false;
+            }
+        }
+    }
+
+    private void log() {
+        final int done = this.completed.get();
+        final double elapsed = (System.nanoTime() - this.start) / 1.0E9;
+        final String percent = String.format("%.2f", this.total == 0 ? 100.0 : done * 100.0 / this.total);
+        if (done == 0) {
+            LOGGER.info("Saved 0/{} regions (0.00%), elapsed {}s", this.total, String.format("%.0f", elapsed));
+            return;
+        }
+        final double remaining = elapsed / done * (this.total - done);
+        LOGGER.info("Saved {}/{} regions ({}%), elapsed {}s, ETA {}s", done, this.total, percent, String.format("%.0f", elapsed), String.format("%.0f", remaining));
+    }
+}
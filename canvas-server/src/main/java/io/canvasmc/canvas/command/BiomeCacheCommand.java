@@ -0,0 +1,41 @@
+package io.canvasmc.canvas.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import io.canvasmc.canvas.Config;
+import io.canvasmc.canvas.chunk.gen.QuartBiomeCache;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.chat.Style;
+import org.jetbrains.annotations.NotNull;
+
+import static net.minecraft.commands.Commands.literal;
+
+public class BiomeCacheCommand {
+    public static void register(@NotNull CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(
+            literal("biomecache")
+                .requires(commandSourceStack -> commandSourceStack.hasPermission(3, "canvas.command.biomecache"))
+                .executes(context -> {
+                    final long hits = QuartBiomeCache.hits();
+                    final long misses = QuartBiomeCache.misses();
+                    final long total = hits + misses;
+                    final String rate = String.format("%.2f", total == 0L ? 0.0 : hits * 100.0 / total);
+                    if (!Config.INSTANCE.chunks.useMultiNoiseBiomeCache) {
+                        context.getSource().sendSystemMessage(Component.literal("The multi noise biome cache is disabled").setStyle(Style.EMPTY.withColor(ChatFormatting.RED)));
+                    }
+                    context.getSource().sendSystemMessage(Component.literal("Biome cache hit rate: ")
+                        .append(Component.literal(rate + "%").setStyle(Style.EMPTY.withColor(ChatFormatting.AQUA)))
+                        .append(Component.literal(" (" + hits + " hits, " + misses + " misses)")));
+                    return (int) Math.min(Integer.MAX_VALUE, hits);
+                })
+                .then(literal("reset")
+                    .executes(context -> {
+                        QuartBiomeCache.resetStats();
+                        context.getSource().sendSystemMessage(Component.literal("Reset biome cache statistics"));
+                        return 1;
+                    })
+                )
+        );
+    }
+}
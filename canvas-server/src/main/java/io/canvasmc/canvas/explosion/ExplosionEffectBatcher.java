@@ -0,0 +1,111 @@
+package io.canvasmc.canvas.explosion;
+
+import io.canvasmc.canvas.Config;
+import io.papermc.paper.threadedregions.RegionizedWorldData;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import java.util.Optional;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.particles.ParticleOptions;
+import net.minecraft.network.protocol.game.ClientboundExplodePacket;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.sounds.SoundEvent;
+import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Per-region batch of the explosion packets sent during a tick.
+ * <p>
+ * Explosions going off in the same block with the same particle and sound are merged into a single packet per player
+ * and sent once the region finished ticking its world. The client only plays the effect and adds the knockback to the
+ * player's motion, so summing the knockback of the merged explosions moves the player exactly as the separate
+ * packets would, while stacked tnt no longer floods every nearby client with hundreds of packets per tick.
+ */
+public final class ExplosionEffectBatcher {
+    private final Reference2ObjectLinkedOpenHashMap<ServerPlayer, Object2ObjectLinkedOpenHashMap<Key, Effect>> pending = new Reference2ObjectLinkedOpenHashMap<>();
+
+    public static void send(@NotNull ServerPlayer player, @NotNull ClientboundExplodePacket packet) {
+        final RegionizedWorldData worldData = Config.INSTANCE.explosions.batchExplosionEffects ? player.level().getCurrentWorldData() : null;
+        if (worldData == null) {
+            player.connection.send(packet);
+            return;
+        }
+        worldData.explosionEffectBatcher.add(player, packet);
+    }
+
+    private void add(ServerPlayer player, ClientboundExplodePacket packet) {
+        final Key key = new Key(BlockPos.containing(packet.center()), packet.explosionParticle(), packet.explosionSound());
+        final Object2ObjectLinkedOpenHashMap<Key, Effect> effects = this.pending.computeIfAbsent(player, ignored -> new Object2ObjectLinkedOpenHashMap<>());
+        final Effect effect = effects.get(key);
+        if (effect == null) {
+            effects.put(key, new Effect(packet));
+        } else {
+            effect.merge(packet);
+        }
+    }
+
+    /**
+     * Sends every batched effect, called at the end of the region's world tick and before the region merges or splits
+     */
+    public void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        for (final Reference2ObjectMap.Entry<ServerPlayer, Object2ObjectLinkedOpenHashMap<Key, Effect>> entry : this.pending.reference2ObjectEntrySet()) {
+            final ServerPlayer player = entry.getKey();
+            if (player.hasDisconnected()) {
+                continue;
+            }
+            for (final Effect effect : entry.getValue().values()) {
+                player.connection.send(effect.toPacket());
+            }
+        }
+        this.pending.clear();
+    }
+
+    private record Key(BlockPos block, ParticleOptions particle, Holder<SoundEvent> sound) {
+    }
+
+    private static final class Effect {
+        private final ClientboundExplodePacket first;
+        private double knockbackX;
+        private double knockbackY;
+        private double knockbackZ;
+        private boolean knockback;
+        private boolean merged;
+
+        private Effect(ClientboundExplodePacket packet) {
+            this.first = packet;
+            this.add(packet.playerKnockback());
+        }
+
+        private void merge(ClientboundExplodePacket packet) {
+            this.merged = true;
+            this.add(packet.playerKnockback());
+        }
+
+        private void add(Optional<Vec3> knockback) {
+            if (knockback.isPresent()) {
+                final Vec3 value = knockback.get();
+                this.knockbackX += value.x;
+                this.knockbackY += value.y;
+                this.knockbackZ += value.z;
+                this.knockback = true;
+            }
+        }
+
+        private ClientboundExplodePacket toPacket() {
+            if (!this.merged) {
+                return this.first;
+            }
+            return new ClientboundExplodePacket(
+                this.first.center(),
+                this.knockback ? Optional.of(new Vec3(this.knockbackX, this.knockbackY, this.knockbackZ)) : Optional.empty(),
+                this.first.explosionParticle(),
+                this.first.explosionSound()
+            );
+        }
+    }
+}
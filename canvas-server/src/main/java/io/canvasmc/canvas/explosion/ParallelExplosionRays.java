@@ -0,0 +1,248 @@
+package io.canvasmc.canvas.explosion;
+
+import ca.spottedleaf.moonrise.common.util.TickThread;
+import io.canvasmc.canvas.Config;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.boss.enderdragon.EndCrystal;
+import net.minecraft.world.entity.item.PrimedTnt;
+import net.minecraft.world.level.EntityBasedExplosionDamageCalculator;
+import net.minecraft.world.level.ExplosionDamageCalculator;
+import net.minecraft.world.level.ServerExplosion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.piston.PistonBaseBlock;
+import net.minecraft.world.level.block.piston.PistonMovingBlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Casts the block destruction rays of large explosions on a shared fork join pool.
+ * <p>
+ * The chunks in reach of the explosion are collected on the region thread first, which then blocks until the rays
+ * are done, so nothing can modify those chunks while the workers read them. The random ray strengths are drawn up
+ * front in ray order and the hit blocks are merged back in ray order on the region thread, which also evaluates
+ * {@code shouldBlockExplode} there, so the resulting block list is the same one the sequential loop produces. Only
+ * explosions whose block resistance does not depend on anything but the block itself are handed off.
+ */
+public final class ParallelExplosionRays {
+    // ray increments in the order vanilla casts them, x, y and z per ray
+    private static final double[] RAYS;
+    private static final int RAY_COUNT;
+    private static final int RAYS_PER_TASK = 64;
+    private static final int CACHE_SIZE = 4096;
+
+    static {
+        final DoubleArrayList rays = new DoubleArrayList();
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                for (int k = 0; k < 16; k++) {
+                    if (i == 0 || i == 15 || j == 0 || j == 15 || k == 0 || k == 15) {
+                        final double x = i / 15.0F * 2.0F - 1.0F;
+                        final double y = j / 15.0F * 2.0F - 1.0F;
+                        final double z = k / 15.0F * 2.0F - 1.0F;
+                        final double length = Math.sqrt(x * x + y * y + z * z);
+                        rays.add(x / length * 0.3F);
+                        rays.add(y / length * 0.3F);
+                        rays.add(z / length * 0.3F);
+                    }
+                }
+            }
+        }
+        RAYS = rays.toDoubleArray();
+        RAY_COUNT = RAYS.length / 3;
+    }
+
+    private ParallelExplosionRays() {
+    }
+
+    /**
+     * Returns the exploded positions, or {@code null} if the explosion has to be calculated on the region thread
+     */
+    public static @Nullable List<BlockPos> calculate(@NotNull ServerExplosion explosion, @NotNull ServerLevel level, @NotNull Vec3 center, float radius, boolean fire, @NotNull ExplosionDamageCalculator damageCalculator, @Nullable Entity source) {
+        final Config.Explosions config = Config.INSTANCE.explosions;
+        if (!config.parallelRayCasting || radius < config.parallelRayCastingMinRadius || !hasPureResistance(damageCalculator, source)) {
+            return null;
+        }
+
+        // a ray loses at least 0.225 strength per 0.3 blocks travelled, starting from at most 1.3 times the radius
+        final int reach = Mth.ceil(radius * 1.3F / 0.22500001F * 0.3F) + 1;
+        final int minChunkX = (Mth.floor(center.x) - reach) >> 4;
+        final int maxChunkX = (Mth.floor(center.x) + reach) >> 4;
+        final int minChunkZ = (Mth.floor(center.z) - reach) >> 4;
+        final int maxChunkZ = (Mth.floor(center.z) + reach) >> 4;
+        final int chunksX = maxChunkX - minChunkX + 1;
+        final LevelChunk[] chunks = new LevelChunk[chunksX * (maxChunkZ - minChunkZ + 1)];
+        for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                final LevelChunk chunk = level.getChunkIfLoaded(chunkX, chunkZ);
+                if (chunk == null || !TickThread.isTickThreadFor(level, chunkX, chunkZ)) {
+                    return null;
+                }
+                chunks[(chunkZ - minChunkZ) * chunksX + chunkX - minChunkX] = chunk;
+            }
+        }
+        final Volume volume = new Volume(explosion, level, damageCalculator, chunks, minChunkX, minChunkZ, chunksX);
+
+        final float[] strengths = new float[RAY_COUNT];
+        for (int ray = 0; ray < RAY_COUNT; ray++) {
+            strengths[ray] = radius * (0.7F + level.random.nextFloat() * 0.6F);
+        }
+
+        final long[][] hitBlocks = new long[RAY_COUNT][];
+        final float[][] hitStrengths = new float[RAY_COUNT][];
+        final ObjectArrayList<Callable<Void>> tasks = new ObjectArrayList<>();
+        for (int from = 0; from < RAY_COUNT; from += RAYS_PER_TASK) {
+            final int start = from;
+            final int end = Math.min(RAY_COUNT, from + RAYS_PER_TASK);
+            tasks.add(() -> {
+                castRays(volume, center, strengths, start, end, hitBlocks, hitStrengths);
+                return null;
+            });
+        }
+        try {
+            for (final Future<Void> future : PoolHolder.POOL.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while casting explosion rays", exception);
+        } catch (final ExecutionException exception) {
+            throw new IllegalStateException("Failed to cast explosion rays", exception.getCause());
+        }
+
+        final boolean allowHeadlessPistons = io.papermc.paper.configuration.GlobalConfiguration.get().unsupportedSettings.allowHeadlessPistons;
+        final ObjectArrayList<BlockPos> exploded = new ObjectArrayList<>();
+        final LongOpenHashSet visited = new LongOpenHashSet();
+        for (int ray = 0; ray < RAY_COUNT; ray++) {
+            final long[] blocks = hitBlocks[ray];
+            final float[] blockStrengths = hitStrengths[ray];
+            for (int i = 0; i < blocks.length; i++) {
+                if (!visited.add(blocks[i])) {
+                    continue;
+                }
+                final BlockPos pos = BlockPos.of(blocks[i]);
+                final BlockState state = volume.getBlockState(pos.getX(), pos.getY(), pos.getZ());
+                if (!damageCalculator.shouldBlockExplode(explosion, level, pos, state, blockStrengths[i]) || (!fire && state.isAir())) {
+                    continue;
+                }
+                exploded.add(pos);
+                // Paper - prevent headless pistons from forming
+                if (!allowHeadlessPistons && state.is(Blocks.MOVING_PISTON)) {
+                    final BlockEntity blockEntity = level.getBlockEntity(pos);
+                    if (blockEntity instanceof PistonMovingBlockEntity piston && piston.isSourcePiston()) {
+                        exploded.add(pos.relative(piston.getMovedState().getValue(PistonBaseBlock.FACING).getOpposite()));
+                    }
+                }
+            }
+        }
+        return exploded;
+    }
+
+    private static boolean hasPureResistance(ExplosionDamageCalculator damageCalculator, @Nullable Entity source) {
+        if (damageCalculator.getClass() == ExplosionDamageCalculator.class) {
+            return true;
+        }
+        // tnt and end crystals keep the entity defaults, which only look at the block
+        return damageCalculator.getClass() == EntityBasedExplosionDamageCalculator.class && (source instanceof PrimedTnt || source instanceof EndCrystal);
+    }
+
+    private static void castRays(Volume volume, Vec3 center, float[] strengths, int start, int end, long[][] hitBlocks, float[][] hitStrengths) {
+        final long[] cacheKeys = new long[CACHE_SIZE];
+        final float[] cacheResistances = new float[CACHE_SIZE];
+        final boolean[] cached = new boolean[CACHE_SIZE];
+        final LongArrayList blocks = new LongArrayList();
+        final FloatArrayList blockStrengths = new FloatArrayList();
+        for (int ray = start; ray < end; ray++) {
+            final double incX = RAYS[ray * 3];
+            final double incY = RAYS[ray * 3 + 1];
+            final double incZ = RAYS[ray * 3 + 2];
+            double x = center.x;
+            double y = center.y;
+            double z = center.z;
+            long lastKey = 0L;
+            boolean hasLast = false;
+            blocks.clear();
+            blockStrengths.clear();
+            for (float strength = strengths[ray]; strength > 0.0F; strength -= 0.22500001F) {
+                final int blockX = Mth.floor(x);
+                final int blockY = Mth.floor(y);
+                final int blockZ = Mth.floor(z);
+                if (!volume.isInWorldBounds(blockX, blockY, blockZ)) {
+                    break;
+                }
+                final long key = BlockPos.asLong(blockX, blockY, blockZ);
+                final int slot = (blockX & 15) | (blockZ & 15) << 4 | (blockY & 15) << 8;
+                final float resistance;
+                if (cached[slot] && cacheKeys[slot] == key) {
+                    resistance = cacheResistances[slot];
+                } else {
+                    resistance = volume.getResistance(blockX, blockY, blockZ);
+                    cached[slot] = true;
+                    cacheKeys[slot] = key;
+                    cacheResistances[slot] = resistance;
+                }
+                strength -= resistance;
+                if (strength > 0.0F && (!hasLast || lastKey != key)) {
+                    blocks.add(key);
+                    blockStrengths.add(strength);
+                    lastKey = key;
+                    hasLast = true;
+                }
+                x += incX;
+                y += incY;
+                z += incZ;
+            }
+            hitBlocks[ray] = blocks.toLongArray();
+            hitStrengths[ray] = blockStrengths.toFloatArray();
+        }
+    }
+
+    private record Volume(ServerExplosion explosion, ServerLevel level, ExplosionDamageCalculator damageCalculator, LevelChunk[] chunks, int minChunkX, int minChunkZ, int chunksX) {
+
+        boolean isInWorldBounds(int x, int y, int z) {
+            return y >= this.level.getMinY() && y <= this.level.getMaxY() && x >= -30000000 && z >= -30000000 && x < 30000000 && z < 30000000;
+        }
+
+        BlockState getBlockState(int x, int y, int z) {
+            return this.chunks[((z >> 4) - this.minChunkZ) * this.chunksX + (x >> 4) - this.minChunkX].getBlockStateFinal(x, y, z);
+        }
+
+        float getResistance(int x, int y, int z) {
+            final BlockState state = this.getBlockState(x, y, z);
+            final Optional<Float> resistance = this.damageCalculator.getBlockExplosionResistance(this.explosion, this.level, new BlockPos(x, y, z), state, state.getFluidState());
+            return resistance.map(value -> (value + 0.3F) * 0.3F).orElse(0.0F);
+        }
+    }
+
+    private static final class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool(
+            Config.INSTANCE.explosions.parallelRayCastingThreads > 0 ? Config.INSTANCE.explosions.parallelRayCastingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+            pool -> {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("Canvas Explosion Worker #" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null,
+            false
+        );
+    }
+}
@@ -0,0 +1,173 @@
+package io.canvasmc.canvas.tick;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import java.util.Queue;
+import java.util.function.LongPredicate;
+import net.minecraft.world.ticks.LevelChunkTicks;
+import net.minecraft.world.ticks.ScheduledTick;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Index over the next trigger tick of every chunk tick container, bucketed by that game tick.
+ * <p>
+ * Vanilla walks the whole container map every tick to find the chunks with a due tick, which gets expensive once a
+ * region holds thousands of chunks with pending water or redstone ticks. Here the due containers are read straight
+ * from the buckets up to the current game tick. The vanilla map stays the source of truth, {@code LevelTicks} routes
+ * its scheduling writes through {@link #put(long, long)}, {@link #scheduleAtMost(long, long)} and
+ * {@link #remove(long)}, and every bucket entry is checked against the map before it is used, so entries left behind
+ * by writes that bypass the index are simply dropped. Writes that add containers behind the index' back, the region
+ * merge and split, have to call {@link #invalidate()} so the buckets are rebuilt before the next collection.
+ * <p>
+ * Only the container selection changes, the per-chunk queues and the global drain order stay vanilla, so ticks still
+ * run in trigger tick, priority and sub tick order.
+ */
+public final class BucketedTickSchedule {
+    private static final int MAX_POOLED = 64;
+
+    private final Long2LongMap nextTickForContainer;
+    private final Long2ObjectRBTreeMap<LongOpenHashSet> buckets = new Long2ObjectRBTreeMap<>();
+    private final ObjectArrayList<LongOpenHashSet> pool = new ObjectArrayList<>();
+    private final LongArrayList due = new LongArrayList();
+    private boolean invalidated;
+
+    public BucketedTickSchedule(@NotNull Long2LongMap nextTickForContainer) {
+        this.nextTickForContainer = nextTickForContainer;
+        this.invalidated = !nextTickForContainer.isEmpty();
+    }
+
+    /**
+     * Replacement for {@code nextTickForContainer.put(key, tick)}
+     */
+    public void put(long key, long tick) {
+        final long previous = this.nextTickForContainer.put(key, tick);
+        if (previous == tick) {
+            return;
+        }
+        if (previous != this.nextTickForContainer.defaultReturnValue()) {
+            this.unbucket(key, previous);
+        }
+        this.bucket(key, tick);
+    }
+
+    /**
+     * Replacement for {@code nextTickForContainer.mergeLong(key, tick, Math::min)}
+     */
+    public void scheduleAtMost(long key, long tick) {
+        if (!this.nextTickForContainer.containsKey(key)) {
+            this.nextTickForContainer.put(key, tick);
+            this.bucket(key, tick);
+        } else if (tick < this.nextTickForContainer.get(key)) {
+            this.put(key, tick);
+        }
+    }
+
+    /**
+     * Replacement for {@code nextTickForContainer.remove(key)}
+     */
+    public void remove(long key) {
+        final long previous = this.nextTickForContainer.remove(key);
+        if (previous != this.nextTickForContainer.defaultReturnValue()) {
+            this.unbucket(key, previous);
+        }
+    }
+
+    /**
+     * Marks the buckets as out of date after the underlying map was written directly
+     */
+    public void invalidate() {
+        this.invalidated = true;
+    }
+
+    private void rebuild() {
+        this.invalidated = false;
+        for (final LongOpenHashSet bucket : this.buckets.values()) {
+            this.recycle(bucket);
+        }
+        this.buckets.clear();
+        for (final ObjectIterator<Long2LongMap.Entry> iterator = Long2LongMaps.fastIterator(this.nextTickForContainer); iterator.hasNext(); ) {
+            final Long2LongMap.Entry entry = iterator.next();
+            this.bucket(entry.getLongKey(), entry.getLongValue());
+        }
+    }
+
+    private void bucket(long key, long tick) {
+        LongOpenHashSet bucket = this.buckets.get(tick);
+        if (bucket == null) {
+            bucket = this.pool.isEmpty() ? new LongOpenHashSet() : this.pool.pop();
+            this.buckets.put(tick, bucket);
+        }
+        bucket.add(key);
+    }
+
+    private void unbucket(long key, long tick) {
+        final LongOpenHashSet bucket = this.buckets.get(tick);
+        if (bucket != null && bucket.remove(key) && bucket.isEmpty()) {
+            this.buckets.remove(tick);
+            this.recycle(bucket);
+        }
+    }
+
+    private void recycle(LongOpenHashSet bucket) {
+        if (this.pool.size() < MAX_POOLED) {
+            bucket.clear();
+            this.pool.add(bucket);
+        }
+    }
+
+    /**
+     * Replacement for {@code LevelTicks#sortContainersToTick}, moves every container with a due tick into the queue
+     */
+    public <T> void collectDue(long gameTime, @NotNull Long2ObjectMap<LevelChunkTicks<T>> containers, @NotNull LongPredicate tickCheck, @NotNull Queue<LevelChunkTicks<T>> containersToTick) {
+        if (this.invalidated) {
+            this.rebuild();
+        }
+        final LongArrayList due = this.due;
+        due.clear();
+        for (final ObjectBidirectionalIterator<Long2ObjectMap.Entry<LongOpenHashSet>> iterator = this.buckets.headMap(gameTime + 1L).long2ObjectEntrySet().iterator(); iterator.hasNext(); ) {
+            final Long2ObjectMap.Entry<LongOpenHashSet> entry = iterator.next();
+            final long tick = entry.getLongKey();
+            final LongOpenHashSet bucket = entry.getValue();
+            for (final LongIterator keys = bucket.iterator(); keys.hasNext(); ) {
+                final long key = keys.nextLong();
+                if (this.nextTickForContainer.containsKey(key) && this.nextTickForContainer.get(key) == tick) {
+                    due.add(key);
+                } else {
+                    keys.remove(); // stale
+                }
+            }
+            if (bucket.isEmpty()) {
+                iterator.remove();
+                this.recycle(bucket);
+            }
+        }
+
+        // same decisions as vanilla, a container whose chunk may not tick yet stays due and is checked again next tick
+        for (int i = 0, size = due.size(); i < size; i++) {
+            final long key = due.getLong(i);
+            final LevelChunkTicks<T> container = containers.get(key);
+            if (container == null) {
+                this.remove(key);
+                continue;
+            }
+            final ScheduledTick<T> next = container.peek();
+            if (next == null) {
+                this.remove(key);
+            } else if (next.triggerTick() > gameTime) {
+                this.put(key, next.triggerTick());
+            } else if (tickCheck.test(key)) {
+                this.remove(key);
+                containersToTick.add(container);
+            }
+        }
+        due.clear();
+    }
+}
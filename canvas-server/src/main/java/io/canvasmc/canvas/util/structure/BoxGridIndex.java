@@ -0,0 +1,157 @@
+package io.canvasmc.canvas.util.structure;
+
+import java.util.Arrays;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.AABB;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Flat uniform grid of the piece boxes placed inside a jigsaw structure's boundary.
+ * <p>
+ * Boxes are packed into a {@code double[]} and every grid cell they overlap links to them through {@code int[]}
+ * entry lists, so a collision check only visits the boxes sharing a cell with the query instead of walking octants
+ * that stop subdividing after a fixed depth. Boxes sticking out of the boundary are clamped into the edge cells.
+ */
+public final class BoxGridIndex {
+
+    private static final int CELL_SHIFT = 4;
+
+    private final AABB boundary;
+    private final int cellsX;
+    private final int cellsY;
+    private final int cellsZ;
+    private final int[] cellHeads;
+
+    // minX, minY, minZ, maxX, maxY, maxZ per box
+    private double[] boxes = new double[6 * 16];
+    private int boxCount;
+
+    private int[] entryBoxes = new int[64];
+    private int[] entryNext = new int[64];
+    private int entryCount;
+
+    public BoxGridIndex(@NotNull AABB boundary) {
+        this.boundary = boundary;
+        cellsX = cellCount(boundary.getXsize());
+        cellsY = cellCount(boundary.getYsize());
+        cellsZ = cellCount(boundary.getZsize());
+        cellHeads = new int[cellsX * cellsY * cellsZ];
+        Arrays.fill(cellHeads, -1);
+    }
+
+    private static int cellCount(double size) {
+        return Math.max(1, ((int) Math.ceil(size) + (1 << CELL_SHIFT) - 1) >> CELL_SHIFT);
+    }
+
+    private static int cell(double coordinate, double min, int cells) {
+        int cell = (int) Math.floor(coordinate - min) >> CELL_SHIFT;
+        return cell < 0 ? 0 : Math.min(cell, cells - 1);
+    }
+
+    private int cellIndex(int x, int y, int z) {
+        return (y * cellsZ + z) * cellsX + x;
+    }
+
+    public void addBox(@NotNull AABB box) {
+        int minCellX = cell(box.minX, boundary.minX, cellsX);
+        int minCellY = cell(box.minY, boundary.minY, cellsY);
+        int minCellZ = cell(box.minZ, boundary.minZ, cellsZ);
+
+        // Prevent re-adding the same box if it already exists, an equal box always shares its first cell
+        for (int entry = cellHeads[cellIndex(minCellX, minCellY, minCellZ)]; entry != -1; entry = entryNext[entry]) {
+            int offset = entryBoxes[entry] * 6;
+            if (boxes[offset] == box.minX && boxes[offset + 1] == box.minY && boxes[offset + 2] == box.minZ
+                && boxes[offset + 3] == box.maxX && boxes[offset + 4] == box.maxY && boxes[offset + 5] == box.maxZ) {
+                return;
+            }
+        }
+
+        int boxIndex = boxCount++;
+        if (boxCount * 6 > boxes.length) {
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+        int offset = boxIndex * 6;
+        boxes[offset] = box.minX;
+        boxes[offset + 1] = box.minY;
+        boxes[offset + 2] = box.minZ;
+        boxes[offset + 3] = box.maxX;
+        boxes[offset + 4] = box.maxY;
+        boxes[offset + 5] = box.maxZ;
+
+        int maxCellX = cell(box.maxX, boundary.minX, cellsX);
+        int maxCellY = cell(box.maxY, boundary.minY, cellsY);
+        int maxCellZ = cell(box.maxZ, boundary.minZ, cellsZ);
+        for (int y = minCellY; y <= maxCellY; y++) {
+            for (int z = minCellZ; z <= maxCellZ; z++) {
+                for (int x = minCellX; x <= maxCellX; x++) {
+                    link(cellIndex(x, y, z), boxIndex);
+                }
+            }
+        }
+    }
+
+    private void link(int cell, int boxIndex) {
+        if (entryCount == entryBoxes.length) {
+            entryBoxes = Arrays.copyOf(entryBoxes, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryBoxes[entryCount] = boxIndex;
+        entryNext[entryCount] = cellHeads[cell];
+        cellHeads[cell] = entryCount++;
+    }
+
+    public boolean boundaryEntirelyContains(@NotNull AABB axisAlignedBB) {
+        return boundary.contains(axisAlignedBB.minX, axisAlignedBB.minY, axisAlignedBB.minZ) &&
+            boundary.contains(axisAlignedBB.maxX, axisAlignedBB.maxY, axisAlignedBB.maxZ);
+    }
+
+    public boolean withinBoundsButNotIntersectingChildren(AABB axisAlignedBB) {
+        return this.boundaryEntirelyContains(axisAlignedBB) && !this.intersectsAnyBox(axisAlignedBB);
+    }
+
+    public boolean intersectsAnyBox(@NotNull AABB query) {
+        int minCellX = cell(query.minX, boundary.minX, cellsX);
+        int minCellY = cell(query.minY, boundary.minY, cellsY);
+        int minCellZ = cell(query.minZ, boundary.minZ, cellsZ);
+        int maxCellX = cell(query.maxX, boundary.minX, cellsX);
+        int maxCellY = cell(query.maxY, boundary.minY, cellsY);
+        int maxCellZ = cell(query.maxZ, boundary.minZ, cellsZ);
+        for (int y = minCellY; y <= maxCellY; y++) {
+            for (int z = minCellZ; z <= maxCellZ; z++) {
+                for (int x = minCellX; x <= maxCellX; x++) {
+                    for (int entry = cellHeads[cellIndex(x, y, z)]; entry != -1; entry = entryNext[entry]) {
+                        int offset = entryBoxes[entry] * 6;
+                        // same as AABB#intersects
+                        if (boxes[offset] < query.maxX && boxes[offset + 3] > query.minX
+                            && boxes[offset + 1] < query.maxY && boxes[offset + 4] > query.minY
+                            && boxes[offset + 2] < query.maxZ && boxes[offset + 5] > query.minZ) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean boundaryContains(@NotNull BlockPos position) {
+        return boundary.contains(position.getX(), position.getY(), position.getZ());
+    }
+
+    public boolean withinAnyBox(@NotNull BlockPos position) {
+        int x = position.getX();
+        int y = position.getY();
+        int z = position.getZ();
+        int cell = cellIndex(cell(x, boundary.minX, cellsX), cell(y, boundary.minY, cellsY), cell(z, boundary.minZ, cellsZ));
+        for (int entry = cellHeads[cell]; entry != -1; entry = entryNext[entry]) {
+            int offset = entryBoxes[entry] * 6;
+            // same as AABB#contains
+            if (x >= boxes[offset] && x < boxes[offset + 3]
+                && y >= boxes[offset + 1] && y < boxes[offset + 4]
+                && z >= boxes[offset + 2] && z < boxes[offset + 5]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
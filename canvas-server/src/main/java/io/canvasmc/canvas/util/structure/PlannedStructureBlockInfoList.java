@@ -0,0 +1,50 @@
+package io.canvasmc.canvas.util.structure;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+
+/**
+ * The palette blocks a placement processes, along with their positions after the placement's mirror and rotation
+ * taken from its {@link StructurePlacementPlan}. {@link StructureTemplate#processBlockInfos} uses those instead
+ * of transforming every block again.
+ */
+public final class PlannedStructureBlockInfoList extends AbstractList<StructureTemplate.StructureBlockInfo> {
+    private final List<StructureTemplate.StructureBlockInfo> infos = new ArrayList<>();
+    private int[] positions = new int[3 * 16];
+
+    void add(StructureTemplate.StructureBlockInfo info, int x, int y, int z) {
+        int offset = infos.size() * 3;
+        if (offset + 3 > positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[offset] = x;
+        positions[offset + 1] = y;
+        positions[offset + 2] = z;
+        infos.add(info);
+    }
+
+    @Override
+    public StructureTemplate.StructureBlockInfo get(int index) {
+        return infos.get(index);
+    }
+
+    @Override
+    public int size() {
+        return infos.size();
+    }
+
+    public int x(int index) {
+        return positions[index * 3];
+    }
+
+    public int y(int index) {
+        return positions[index * 3 + 1];
+    }
+
+    public int z(int index) {
+        return positions[index * 3 + 2];
+    }
+}
@@ -0,0 +1,60 @@
+package io.canvasmc.canvas.util.structure;
+
+import java.util.List;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The block positions of a template palette after mirroring and rotating them around a pivot, packed into an
+ * {@code int[]} in palette order. Plans are immutable and each palette keeps one per mirror and rotation, the one
+ * for the pivot it was last placed around, so a palette never holds more than eight of them.
+ */
+public final class StructurePlacementPlan {
+    private static final int ROTATIONS = Rotation.values().length;
+
+    private final long pivot;
+    private final int[] positions;
+
+    private StructurePlacementPlan(@NotNull List<StructureTemplate.StructureBlockInfo> blocks, Mirror mirror, Rotation rotation, BlockPos pivot) {
+        this.pivot = pivot.asLong();
+        positions = new int[blocks.size() * 3];
+        int i = 0;
+        for (StructureTemplate.StructureBlockInfo blockInfo : blocks) {
+            BlockPos pos = StructureTemplate.transform(blockInfo.pos(), mirror, rotation, pivot);
+            positions[i++] = pos.getX();
+            positions[i++] = pos.getY();
+            positions[i++] = pos.getZ();
+        }
+    }
+
+    public static StructurePlacementPlan @NotNull [] createCache() {
+        return new StructurePlacementPlan[Mirror.values().length * ROTATIONS];
+    }
+
+    public static @NotNull StructurePlacementPlan of(StructureTemplate.@NotNull Palette palette, @NotNull Mirror mirror, @NotNull Rotation rotation, @NotNull BlockPos pivot) {
+        StructurePlacementPlan[] plans = palette.canvas$placementPlans;
+        int slot = mirror.ordinal() * ROTATIONS + rotation.ordinal();
+        StructurePlacementPlan plan = plans[slot];
+        if (plan == null || plan.pivot != pivot.asLong()) {
+            // plans are immutable, placements racing on a slot at worst transform the palette twice
+            plan = new StructurePlacementPlan(palette.blocks(), mirror, rotation, pivot);
+            plans[slot] = plan;
+        }
+        return plan;
+    }
+
+    public int x(int index) {
+        return positions[index * 3];
+    }
+
+    public int y(int index) {
+        return positions[index * 3 + 1];
+    }
+
+    public int z(int index) {
+        return positions[index * 3 + 2];
+    }
+}
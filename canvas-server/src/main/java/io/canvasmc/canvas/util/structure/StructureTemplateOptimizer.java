@@ -37,28 +37,62 @@ public class StructureTemplateOptimizer {
         Rotation rotation = structurePlaceSettings.getRotation();
         BlockPos pivot = structurePlaceSettings.getRotationPivot();
 
-        List<StructureTemplate.StructureBlockInfo> listOfInBoundsRelativePositions = new ArrayList<>();
-        BlockPos.MutableBlockPos mutableBlockPos = new BlockPos.MutableBlockPos();
+        PlannedStructureBlockInfoList listOfInBoundsRelativePositions = new PlannedStructureBlockInfoList();
 
+        // Positions are transformed once per palette and transformation, only the offset differs between placements
+        StructurePlacementPlan plan = StructurePlacementPlan.of(palette, mirror, rotation, pivot);
+        int offsetX = offset.getX();
+        int offsetY = offset.getY();
+        int offsetZ = offset.getZ();
+        int index = 0;
         for (StructureTemplate.StructureBlockInfo blockInfo : originalPositions) {
-            mutableBlockPos.set(blockInfo.pos());
-            transform(mutableBlockPos, mirror, rotation, pivot);
-            mutableBlockPos.move(offset);
-
-            if (boundingBox.isInside(mutableBlockPos)) {
-                listOfInBoundsRelativePositions.add(blockInfo);
+            int x = plan.x(index);
+            int y = plan.y(index);
+            int z = plan.z(index);
+            if (boundingBox.isInside(x + offsetX, y + offsetY, z + offsetZ)) {
+                listOfInBoundsRelativePositions.add(blockInfo, x, y, z);
             }
+            index++;
         }
 
         // DO NOT REMOVE. This is required because the Template will return false for an entirely empty list and then remove the structure piece
         // out of the structure start, preventing it from placing blocks into any other side chunks that the piece was supposed to place blocks in.
         if (listOfInBoundsRelativePositions.isEmpty() && !originalPositions.isEmpty()) {
-            listOfInBoundsRelativePositions.add(originalPositions.get(0));
+            listOfInBoundsRelativePositions.add(originalPositions.get(0), plan.x(0), plan.y(0), plan.z(0));
         }
 
         return listOfInBoundsRelativePositions;
     }
 
+    // Same as StructureTemplate#processBlockInfos, except that the transformed positions come from the placement plan
+    public static @NotNull List<StructureTemplate.StructureBlockInfo> processBlockInfos(ServerLevelAccessor serverLevel, @NotNull BlockPos offset, BlockPos pos, @NotNull StructurePlaceSettings settings, @NotNull PlannedStructureBlockInfoList blockInfos) {
+        List<StructureProcessor> processors = settings.getProcessors();
+        List<StructureTemplate.StructureBlockInfo> originalBlockInfos = new ArrayList<>();
+        List<StructureTemplate.StructureBlockInfo> processedBlockInfos = new ArrayList<>();
+        int offsetX = offset.getX();
+        int offsetY = offset.getY();
+        int offsetZ = offset.getZ();
+        for (int index = 0, size = blockInfos.size(); index < size; index++) {
+            StructureTemplate.StructureBlockInfo blockInfo = blockInfos.get(index);
+            BlockPos blockPos = new BlockPos(blockInfos.x(index) + offsetX, blockInfos.y(index) + offsetY, blockInfos.z(index) + offsetZ);
+            StructureTemplate.StructureBlockInfo processed = new StructureTemplate.StructureBlockInfo(blockPos, blockInfo.state(), blockInfo.nbt() != null ? blockInfo.nbt().copy() : null);
+            for (int i = 0; processed != null && i < processors.size(); i++) {
+                processed = processors.get(i).processBlock(serverLevel, offset, pos, blockInfo, processed, settings);
+            }
+
+            if (processed != null) {
+                processedBlockInfos.add(processed);
+                originalBlockInfos.add(blockInfo);
+            }
+        }
+
+        for (StructureProcessor processor : processors) {
+            processedBlockInfos = processor.finalizeProcessing(serverLevel, offset, pos, originalBlockInfos, processedBlockInfos, settings);
+        }
+
+        return processedBlockInfos;
+    }
+
     private static @NotNull Boolean isFinalizeProcessor(@NotNull StructureProcessor structureProcessor) {
         try {
             var method = structureProcessor.getClass().getMethod(
@@ -69,37 +103,4 @@ public class StructureTemplateOptimizer {
             throw new RuntimeException("Unable to find 'finalizeProcessing' method. Report this major issue to Canvas", e);
         }
     }
-
-    private static void transform(BlockPos.@NotNull MutableBlockPos mutableBlockPos, @NotNull Mirror mirror, Rotation rotation, BlockPos pivot) {
-        int i = mutableBlockPos.getX();
-        int j = mutableBlockPos.getY();
-        int k = mutableBlockPos.getZ();
-        boolean flag = true;
-        switch (mirror) {
-            case LEFT_RIGHT:
-                k = -k;
-                break;
-            case FRONT_BACK:
-                i = -i;
-                break;
-            default:
-                flag = false;
-        }
-
-        int l = pivot.getX();
-        int i1 = pivot.getZ();
-        switch (rotation) {
-            case COUNTERCLOCKWISE_90:
-                mutableBlockPos.set(l - i1 + k, j, l + i1 - i);
-                return;
-            case CLOCKWISE_90:
-                mutableBlockPos.set(l + i1 - k, j, i1 - l + i);
-                return;
-            case CLOCKWISE_180:
-                mutableBlockPos.set(l + l - i, j, i1 + i1 - k);
-                return;
-            default:
-                if (flag) mutableBlockPos.set(i, j, k);
-        }
-    }
 }
@@ -7,11 +7,11 @@ import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.NotNull;
 
 public class TrojanVoxelShape extends VoxelShape {
-    public final BoxOctree boxOctree;
+    public final BoxGridIndex boxIndex;
 
-    public TrojanVoxelShape(BoxOctree boxOctree) {
+    public TrojanVoxelShape(BoxGridIndex boxIndex) {
         super(BitSetDiscreteVoxelShape.withFilledBounds(0, 0, 0, 0, 0, 0, 0, 0, 0));
-        this.boxOctree = boxOctree;
+        this.boxIndex = boxIndex;
     }
 
     @Override
@@ -0,0 +1,142 @@
+package io.canvasmc.canvas.chunk;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.canvasmc.canvas.Config;
+import io.papermc.paper.threadedregions.RegionizedWorldData;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.GameRules;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.LiquidBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FlowingFluid;
+import net.minecraft.world.level.material.FluidState;
+import net.minecraft.world.level.material.Fluids;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.invocation.InvocationOnMock;
+
+/**
+ * Runs the real water spread decision against a small block map and checks the cached decision always matches a fresh
+ * one while blocks around the fluids change and a neighbouring chunk loads and unloads.
+ */
+@Normal
+public class FluidSpreadCacheTest {
+    private static final int FLOOR_Y = 63;
+    private static final int UNLOADING_CHUNK_X = 1;
+
+    private final Map<BlockPos, BlockState> blocks = new HashMap<>();
+    private final GameRules gameRules = mock(GameRules.class);
+    private RegionizedWorldData worldData;
+    private ServerLevel level;
+    private boolean chunkLoaded;
+    private Method getSpread;
+
+    @BeforeAll
+    public static void setupConfig() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @BeforeEach
+    public void setup() throws ReflectiveOperationException {
+        this.worldData = mock(RegionizedWorldData.class);
+        this.worldData.slopeDistanceCacheVisited = new LongOpenHashSet();
+        this.worldData.slopeDistanceCacheQueue = new FlowingFluid.SlopeDistanceNodeDeque();
+        final Field cache = RegionizedWorldData.class.getDeclaredField("fluidSpreadCache");
+        cache.setAccessible(true);
+        cache.set(this.worldData, new FluidSpreadCache());
+
+        this.level = mock(ServerLevel.class, withSettings().defaultAnswer(this::answer));
+        this.getSpread = FlowingFluid.class.getDeclaredMethod("getSpread", ServerLevel.class, BlockPos.class, BlockState.class);
+        this.getSpread.setAccessible(true);
+        Config.INSTANCE.chunks.cacheFluidSpread = true;
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.cacheFluidSpread = false;
+    }
+
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+        return switch (invocation.getMethod().getName()) {
+            case "getBlockState" -> this.state(invocation.getArgument(0));
+            case "getBlockStateIfLoaded" -> this.loaded(invocation.getArgument(0)) ? this.state(invocation.getArgument(0)) : null;
+            case "getFluidState" -> this.state(invocation.getArgument(0)).getFluidState();
+            case "getCurrentWorldData" -> this.worldData;
+            case "getGameRules" -> this.gameRules;
+            case "getMinSectionY" -> -4;
+            case "getMaxSectionY" -> 19;
+            default -> Answers.RETURNS_DEFAULTS.answer(invocation);
+        };
+    }
+
+    private boolean loaded(BlockPos pos) {
+        return this.chunkLoaded || (pos.getX() >> 4) != UNLOADING_CHUNK_X;
+    }
+
+    private BlockState state(BlockPos pos) {
+        final BlockState state = this.blocks.get(pos);
+        if (state != null) {
+            return state;
+        }
+        return pos.getY() <= FLOOR_Y ? Blocks.STONE.defaultBlockState() : Blocks.AIR.defaultBlockState();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Direction, FluidState> spread(BlockPos pos, boolean cached) throws ReflectiveOperationException {
+        Config.INSTANCE.chunks.cacheFluidSpread = cached;
+        try {
+            return (Map<Direction, FluidState>) this.getSpread.invoke(Fluids.WATER, this.level, pos, this.state(pos));
+        } finally {
+            Config.INSTANCE.chunks.cacheFluidSpread = true;
+        }
+    }
+
+    @Test
+    public void testCachedSpreadMatchesAfterChanges() throws ReflectiveOperationException {
+        final List<BlockPos> fluids = List.of(
+            new BlockPos(0, 64, 0), new BlockPos(1, 64, 0), new BlockPos(-2, 64, 1),
+            new BlockPos(3, 64, -3), new BlockPos(14, 64, 4), new BlockPos(15, 64, 9), new BlockPos(12, 64, -6)
+        );
+        for (int i = 0; i < fluids.size(); i++) {
+            this.blocks.put(fluids.get(i), Blocks.WATER.defaultBlockState().setValue(LiquidBlock.LEVEL, i % 4 == 0 ? 0 : i % 8));
+        }
+
+        final Random random = new Random(47L);
+        for (int change = 0; change < 400; change++) {
+            for (final BlockPos fluid : fluids) {
+                assertEquals(this.spread(fluid, false), this.spread(fluid, true), "change " + change + ", fluid " + fluid);
+            }
+
+            if (change % 40 == 39) {
+                this.chunkLoaded = !this.chunkLoaded;
+                FluidSpreadCache.chunkChanged(this.level, UNLOADING_CHUNK_X, 0);
+                continue;
+            }
+            final BlockPos pos = new BlockPos(random.nextInt(-9, 25), FLOOR_Y - 1 + random.nextInt(4), random.nextInt(-12, 13));
+            if (fluids.contains(pos)) {
+                continue;
+            }
+            // open holes into the floor, wall fluids in or clear the way
+            this.blocks.put(pos, random.nextBoolean() ? Blocks.AIR.defaultBlockState() : Blocks.STONE.defaultBlockState());
+            FluidSpreadCache.blockChanged(this.level, pos);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.canvasmc.canvas.chunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ca.spottedleaf.moonrise.common.list.ShortList;
+import io.canvasmc.canvas.util.FasterRandomSource;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.util.Random;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.Test;
+
+@Normal
+public class RandomTickSystemTest {
+    private static final int SPEED = 3;
+
+    private static LevelChunk chunk(int... tickingBlocks) {
+        final LevelChunk chunk = mock(LevelChunk.class);
+        final LevelChunkSection[] sections = new LevelChunkSection[tickingBlocks.length];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = mock(LevelChunkSection.class);
+            final ShortList list = mock(ShortList.class);
+            when(list.size()).thenReturn(tickingBlocks[i]);
+            when(sections[i].moonrise$getTickingBlockList()).thenReturn(list);
+        }
+        when(chunk.getSections()).thenReturn(sections);
+        // mocks skip the field initializers of LevelChunk
+        chunk.leaf$tickingBlocksDirty = true;
+        chunk.leaf$tickingCount = new int[0];
+        chunk.canvas$randomTickSlot = -1;
+        return chunk;
+    }
+
+    private static void setTickingBlocks(LevelChunk chunk, int section, int tickingBlocks) {
+        when(chunk.getSections()[section].moonrise$getTickingBlockList().size()).thenReturn(tickingBlocks);
+    }
+
+    @Test
+    public void testWeightTreeFindBounds() {
+        final long[] weights = {3L, 0L, 5L, 1L, 0L, 0L, 7L, 0L};
+        final RandomTickSystem.WeightTree tree = new RandomTickSystem.WeightTree();
+        tree.ensureCapacity(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            tree.set(i, weights[i]);
+        }
+        assertEquals(16L, tree.total());
+
+        long start = 0L;
+        for (int slot = 0; slot < weights.length; slot++) {
+            // every target inside a slot's range, including both of its ends, finds that slot and never an empty one
+            for (long target = start; target < start + weights[slot]; target++) {
+                assertEquals(slot, tree.find(target), "target " + target);
+                assertEquals(target - start, tree.remainder, "target " + target);
+            }
+            start += weights[slot];
+        }
+        assertEquals(0, tree.find(0L));
+        assertEquals(6, tree.find(tree.total() - 1L));
+    }
+
+    @Test
+    public void testWeightTreeUpdates() {
+        final Random random = new Random(42L);
+        final RandomTickSystem.WeightTree tree = new RandomTickSystem.WeightTree();
+        long[] weights = new long[0];
+        for (int round = 0; round < 2000; round++) {
+            if (round % 250 == 0) {
+                // growing keeps the weights set so far
+                weights = java.util.Arrays.copyOf(weights, weights.length * 2 + 3);
+                tree.ensureCapacity(weights.length);
+            }
+            final int slot = random.nextInt(weights.length);
+            weights[slot] = random.nextInt(4) == 0 ? 0L : random.nextInt(1, 4096 * 24);
+            tree.set(slot, weights[slot]);
+
+            long total = 0L;
+            for (final long weight : weights) {
+                total += weight;
+            }
+            assertEquals(total, tree.total());
+            if (total == 0L) {
+                continue;
+            }
+            final long target = (random.nextLong() >>> 1) % total;
+            long prefix = 0L;
+            int expected = 0;
+            while (prefix + weights[expected] <= target) {
+                prefix += weights[expected++];
+            }
+            assertEquals(expected, tree.find(target), "round " + round);
+            assertEquals(target - prefix, tree.remainder, "round " + round);
+            assertEquals(weights[slot], tree.get(slot));
+        }
+    }
+
+    @Test
+    public void testSectionsAreSelectedEvenly() {
+        final LevelChunk[] chunks = {
+            chunk(0, 120, 0, 0),
+            chunk(2500, 4096, 30),
+            chunk(0),
+            chunk(700, 0, 0, 1800),
+            chunk(64, 64, 64, 64)
+        };
+        final RandomTickSystem system = new RandomTickSystem();
+        system.rebuildTracked(chunks, chunks.length);
+
+        final int ticks = 20000;
+        final long[][] hits = new long[chunks.length][];
+        for (int i = 0; i < chunks.length; i++) {
+            hits[i] = new long[chunks[i].getSections().length];
+        }
+        final FasterRandomSource random = new FasterRandomSource(42L);
+        for (int tick = 0; tick < ticks; tick++) {
+            system.sampleTracked(random, SPEED);
+            final LongArrayList sampled = system.sampled();
+            for (int k = 0; k < sampled.size(); k++) {
+                final long packed = sampled.getLong(k);
+                final LevelChunk chunk = system.trackedChunks()[(int) (packed >>> 16)];
+                int index = 0;
+                while (chunks[index] != chunk) {
+                    index++;
+                }
+                hits[index][(int) (packed & 0xFFFF)]++;
+            }
+        }
+
+        for (int i = 0; i < chunks.length; i++) {
+            for (int section = 0; section < hits[i].length; section++) {
+                // every ticking block is picked with probability speed / 4096 per tick, like vanilla's per section rolls
+                final double expected = (double) chunks[i].getSections()[section].moonrise$getTickingBlockList().size() * SPEED / 4096.0 * ticks;
+                final double deviation = Math.abs(hits[i][section] - expected);
+                assertTrue(deviation <= 5.0 * Math.sqrt(expected) + 1.0, "chunk " + i + ", section " + section + ": " + hits[i][section] + " hits, expected " + expected);
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyQueuedChunksAreRecounted() {
+        final LevelChunk first = chunk(100, 0);
+        final LevelChunk second = chunk(0, 200);
+        final LevelChunk third = chunk(300);
+        final RandomTickSystem system = new RandomTickSystem();
+        system.rebuildTracked(new LevelChunk[]{first, second, third}, 3);
+        final FasterRandomSource random = new FasterRandomSource(43L);
+        system.sampleTracked(random, SPEED);
+        assertEquals(600L, system.trackedWeight());
+
+        // nothing changed, so no chunk is looked at again
+        clearInvocations(first, second, third);
+        system.sampleTracked(random, SPEED);
+        verify(first, never()).getSections();
+        verify(second, never()).getSections();
+        verify(third, never()).getSections();
+
+        setTickingBlocks(second, 0, 50);
+        RandomTickSystem.markTickingBlocksDirty(second);
+        system.sampleTracked(random, SPEED);
+        assertEquals(650L, system.trackedWeight());
+        verify(first, never()).getSections();
+        verify(third, never()).getSections();
+
+        // unloading moves the last chunk into the freed slot
+        system.chunkRemoved(first);
+        assertNull(first.canvas$randomTickSystem);
+        assertSame(third, system.trackedChunks()[0]);
+        assertEquals(0, third.canvas$randomTickSlot);
+        system.sampleTracked(random, SPEED);
+        assertEquals(550L, system.trackedWeight());
+
+        // a chunk changing after it was unloaded is no longer queued
+        setTickingBlocks(first, 0, 4000);
+        RandomTickSystem.markTickingBlocksDirty(first);
+        system.sampleTracked(random, SPEED);
+        assertEquals(550L, system.trackedWeight());
+
+        final LevelChunk loaded = chunk(10, 20, 30);
+        system.chunkAdded(loaded);
+        assertEquals(2, loaded.canvas$randomTickSlot);
+        system.sampleTracked(random, SPEED);
+        assertEquals(610L, system.trackedWeight());
+        for (int k = 0; k < system.sampled().size(); k++) {
+            assertTrue((system.sampled().getLong(k) >>> 16) < 3L);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.canvasmc.canvas.chunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+import net.minecraft.core.Direction;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SlabBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.SlabType;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.bukkit.support.RegistryHelper;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The merged shape of a section has to touch exactly the boxes one of its blocks touches, and the cache may only hand
+ * it out for the section contents it was merged from.
+ */
+@AllFeatures
+public class SectionShapeCacheTest {
+    private static final int SECTION_X = 3;
+    private static final int SECTION_Y = 4;
+    private static final int SECTION_Z = -2;
+    private static final BlockState[] PALETTE = {
+        Blocks.AIR.defaultBlockState(), Blocks.AIR.defaultBlockState(), Blocks.WATER.defaultBlockState(),
+        Blocks.STONE.defaultBlockState(), Blocks.GLASS.defaultBlockState(), Blocks.SHORT_GRASS.defaultBlockState(),
+        Blocks.OAK_SLAB.defaultBlockState(), Blocks.OAK_SLAB.defaultBlockState().setValue(SlabBlock.TYPE, SlabType.TOP),
+        Blocks.OAK_FENCE.defaultBlockState(), Blocks.OAK_STAIRS.defaultBlockState(), Blocks.SOUL_SAND.defaultBlockState()
+    };
+
+    private static LevelChunkSection section() {
+        final Registry<Biome> biomes = RegistryHelper.getRegistry().lookupOrThrow(Registries.BIOME);
+        return new LevelChunkSection(
+            new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES),
+            new PalettedContainer<Holder<Biome>>(biomes.asHolderIdMap(), biomes.getOrThrow(Biomes.PLAINS), PalettedContainer.Strategy.SECTION_BIOMES)
+        );
+    }
+
+    private static LevelChunkSection randomSection(Random random, int partialShapes) {
+        final LevelChunkSection section = section();
+        int partial = 0;
+        for (int index = 0; index < 4096; index++) {
+            BlockState state = PALETTE[random.nextInt(PALETTE.length)];
+            if (!state.moonrise$emptyContextCollisionShape() && state.moonrise$getConstantContextCollisionShape() != Shapes.block() && partial++ >= partialShapes) {
+                state = Blocks.STONE.defaultBlockState();
+            }
+            section.setBlockState(index & 15, index >>> 8, (index >>> 4) & 15, state);
+        }
+        return section;
+    }
+
+    private static boolean blocksTouch(LevelChunkSection section, AABB box) {
+        final VoxelShape boxShape = Shapes.create(box);
+        for (int index = 0; index < 4096; index++) {
+            final int x = index & 15;
+            final int y = index >>> 8;
+            final int z = (index >>> 4) & 15;
+            final VoxelShape shape = section.getBlockState(x, y, z).moonrise$getConstantContextCollisionShape();
+            if (shape != null && !shape.isEmpty() && Shapes.joinIsNotEmpty(shape.move((SECTION_X << 4) + x, (SECTION_Y << 4) + y, (SECTION_Z << 4) + z), boxShape, BooleanOp.AND)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testMergedShapeTouchesSameBoxes() {
+        final Random random = new Random(50L);
+        for (final int partialShapes : new int[] {0, 40, 200}) {
+            final LevelChunkSection section = randomSection(random, partialShapes);
+            final VoxelShape merged = SectionShapeCache.merge(section, SECTION_X, SECTION_Y, SECTION_Z);
+            assertNotNull(merged);
+            for (int i = 0; i < 500; i++) {
+                final double x = (SECTION_X << 4) - 1 + random.nextDouble() * 18;
+                final double y = (SECTION_Y << 4) - 1 + random.nextDouble() * 18;
+                final double z = (SECTION_Z << 4) - 1 + random.nextDouble() * 18;
+                final AABB box = new AABB(x, y, z, x + random.nextDouble() * 0.9, y + random.nextDouble() * 1.8, z + random.nextDouble() * 0.9);
+                assertEquals(blocksTouch(section, box), !merged.isEmpty() && Shapes.joinIsNotEmpty(merged, Shapes.create(box), BooleanOp.AND), "box " + box);
+            }
+        }
+    }
+
+    @Test
+    public void testContextShapesAreNotMerged() {
+        final LevelChunkSection section = section();
+        section.setBlockState(1, 2, 3, Blocks.STONE.defaultBlockState());
+        assertNotNull(SectionShapeCache.merge(section, SECTION_X, SECTION_Y, SECTION_Z));
+        section.setBlockState(4, 5, 6, Blocks.MOVING_PISTON.defaultBlockState());
+        assertNull(SectionShapeCache.merge(section, SECTION_X, SECTION_Y, SECTION_Z));
+    }
+
+    @Test
+    public void testShapeFollowsSectionChanges() {
+        final SectionShapeCache cache = new SectionShapeCache();
+        final LevelChunkSection section = section();
+        section.setBlockState(0, 0, 0, Blocks.STONE.defaultBlockState());
+
+        // merged on the second query without changes in between
+        assertNull(cache.get(section, SECTION_X, SECTION_Y, SECTION_Z));
+        final VoxelShape first = cache.get(section, SECTION_X, SECTION_Y, SECTION_Z);
+        assertNotNull(first);
+
+        // same collision shape, the merged shape stays valid
+        section.setBlockState(0, 0, 0, Blocks.GRANITE.defaultBlockState());
+        section.setBlockState(9, 9, 9, Blocks.WATER.defaultBlockState());
+        assertSame(first, cache.get(section, SECTION_X, SECTION_Y, SECTION_Z));
+
+        section.setBlockState(0, 1, 0, Blocks.OAK_SLAB.defaultBlockState());
+        assertNull(cache.get(section, SECTION_X, SECTION_Y, SECTION_Z));
+        final VoxelShape second = cache.get(section, SECTION_X, SECTION_Y, SECTION_Z);
+        assertNotNull(second);
+        final double originX = SECTION_X << 4;
+        final double originY = SECTION_Y << 4;
+        final double originZ = SECTION_Z << 4;
+        assertEquals(originY + 1.5, second.max(Direction.Axis.Y, originX + 0.5, originZ + 0.5), 1.0E-7);
+
+        // a reloaded chunk brings a new section for the same position
+        final LevelChunkSection reloaded = section();
+        assertNull(cache.get(reloaded, SECTION_X, SECTION_Y, SECTION_Z));
+        assertSame(Shapes.empty(), cache.get(reloaded, SECTION_X, SECTION_Y, SECTION_Z));
+    }
+}
@@ -0,0 +1,141 @@
+package io.canvasmc.canvas.chunk.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.TickingBlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.Test;
+
+@Normal
+public class BlockEntityWakeupWheelTest {
+    private final List<TickingBlockEntity> relisted = new ArrayList<>();
+
+    private BlockEntityWakeupWheel wheel() {
+        return new BlockEntityWakeupWheel(this.relisted::add);
+    }
+
+    private static BlockEntity blockEntity(BlockPos pos) {
+        final BlockEntity blockEntity = mock(BlockEntity.class, withSettings().extraInterfaces(SleepingBlockEntity.class));
+        when(blockEntity.getBlockPos()).thenReturn(pos);
+        return blockEntity;
+    }
+
+    private static LevelChunk.RebindableTickingBlockEntityWrapper sleeping(BlockEntity blockEntity) {
+        final LevelChunk.RebindableTickingBlockEntityWrapper wrapper = mock(LevelChunk.RebindableTickingBlockEntityWrapper.class);
+        wrapper.ticker = new SleepingBlockEntity.SleepingTicker((SleepingBlockEntity) blockEntity);
+        return wrapper;
+    }
+
+    @Test
+    public void testParkedWrapperIsUnlistedOnce() {
+        final BlockEntityWakeupWheel wheel = this.wheel();
+        final LevelChunk.RebindableTickingBlockEntityWrapper wrapper = sleeping(blockEntity(BlockPos.ZERO));
+        wheel.park(wrapper);
+        wheel.park(wrapper);
+
+        assertFalse(wheel.unlist(mock(TickingBlockEntity.class)));
+        assertTrue(wheel.unlist(wrapper));
+        assertFalse(wheel.unlist(wrapper));
+
+        wheel.unpark(wrapper);
+        assertEquals(List.of(wrapper), this.relisted);
+        wheel.unpark(wrapper);
+        assertEquals(1, this.relisted.size());
+    }
+
+    @Test
+    public void testWakingBeforeUnlistingKeepsTheWrapperListed() {
+        final BlockEntityWakeupWheel wheel = this.wheel();
+        final LevelChunk.RebindableTickingBlockEntityWrapper wrapper = sleeping(blockEntity(BlockPos.ZERO));
+        wheel.park(wrapper);
+        wheel.unpark(wrapper);
+
+        assertFalse(wheel.unlist(wrapper));
+        assertTrue(this.relisted.isEmpty());
+    }
+
+    @Test
+    public void testAdvanceSweepsRebound() {
+        final BlockEntityWakeupWheel wheel = this.wheel();
+        final LevelChunk.RebindableTickingBlockEntityWrapper sleeping = sleeping(blockEntity(BlockPos.ZERO));
+        final LevelChunk.RebindableTickingBlockEntityWrapper rebound = sleeping(blockEntity(BlockPos.ZERO));
+        final LevelChunk.RebindableTickingBlockEntityWrapper removed = sleeping(blockEntity(BlockPos.ZERO));
+        for (final LevelChunk.RebindableTickingBlockEntityWrapper wrapper : List.of(sleeping, rebound, removed)) {
+            wheel.park(wrapper);
+            assertTrue(wheel.unlist(wrapper));
+        }
+        wheel.advance(100L);
+
+        // rebound behind the wheel's back, for example by a ticker update of the chunk
+        rebound.ticker = mock(TickingBlockEntity.class);
+        final TickingBlockEntity removedTicker = mock(TickingBlockEntity.class);
+        when(removedTicker.isRemoved()).thenReturn(true);
+        removed.ticker = removedTicker;
+
+        wheel.advance(355L);
+        assertTrue(this.relisted.isEmpty());
+        wheel.advance(356L);
+        assertEquals(List.of(rebound), this.relisted);
+
+        // the rebound wrappers are no longer parked, the sleeping one still is
+        wheel.unpark(rebound);
+        wheel.unpark(removed);
+        assertEquals(1, this.relisted.size());
+        wheel.unpark(sleeping);
+        assertEquals(List.of(rebound, sleeping), this.relisted);
+    }
+
+    @Test
+    public void testMergeAppliesTickOffsetToUnlisted() {
+        final BlockEntityWakeupWheel from = this.wheel();
+        final BlockEntityWakeupWheel into = this.wheel();
+        final BlockEntity unlistedEntity = blockEntity(BlockPos.ZERO);
+        final BlockEntity listedEntity = blockEntity(BlockPos.ZERO);
+        final LevelChunk.RebindableTickingBlockEntityWrapper unlisted = sleeping(unlistedEntity);
+        final LevelChunk.RebindableTickingBlockEntityWrapper listed = sleeping(listedEntity);
+        from.park(unlisted);
+        assertTrue(from.unlist(unlisted));
+        from.park(listed);
+
+        from.merge(into, 40L, 12L);
+        verify(unlistedEntity).updateTicks(40L, 12L);
+        // the ticker list merge already updates the ticks of listed wrappers
+        verify(listedEntity, never()).updateTicks(40L, 12L);
+
+        assertTrue(into.unlist(listed));
+        into.unpark(unlisted);
+        into.unpark(listed);
+        assertEquals(List.of(unlisted, listed), this.relisted);
+    }
+
+    @Test
+    public void testSplitFollowsBlockPositions() {
+        final BlockEntityWakeupWheel from = this.wheel();
+        final BlockEntityWakeupWheel west = this.wheel();
+        final BlockEntityWakeupWheel east = this.wheel();
+        final LevelChunk.RebindableTickingBlockEntityWrapper westWrapper = sleeping(blockEntity(new BlockPos(-20, 64, 3)));
+        final LevelChunk.RebindableTickingBlockEntityWrapper eastWrapper = sleeping(blockEntity(new BlockPos(40, 64, 3)));
+        from.park(westWrapper);
+        from.park(eastWrapper);
+        assertTrue(from.unlist(eastWrapper));
+
+        from.split((chunkX, chunkZ) -> chunkX < 0 ? west : east);
+        assertTrue(west.unlist(westWrapper));
+        assertFalse(east.unlist(eastWrapper));
+        west.unpark(westWrapper);
+        east.unpark(eastWrapper);
+        assertEquals(List.of(eastWrapper), this.relisted);
+    }
+}
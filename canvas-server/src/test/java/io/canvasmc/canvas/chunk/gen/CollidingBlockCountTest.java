@@ -0,0 +1,83 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.canvasmc.canvas.Config;
+import java.util.Random;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Every way blocks get into a section has to leave the colliding block count at what a full recount gives.
+ */
+@AllFeatures
+public class CollidingBlockCountTest {
+    private static final long SEED = 50L;
+    private static final BlockState[] PALETTE = {
+        Blocks.AIR.defaultBlockState(), Blocks.WATER.defaultBlockState(), Blocks.STONE.defaultBlockState(),
+        Blocks.SHORT_GRASS.defaultBlockState(), Blocks.OAK_SLAB.defaultBlockState(), Blocks.TORCH.defaultBlockState(),
+        Blocks.OAK_FENCE.defaultBlockState(), Blocks.MOVING_PISTON.defaultBlockState(), Blocks.SCAFFOLDING.defaultBlockState()
+    };
+
+    @BeforeAll
+    public static void setup() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.optimizeNoiseGeneration = false;
+    }
+
+    private static int recount(LevelChunkSection section) {
+        int count = 0;
+        for (int index = 0; index < 4096; index++) {
+            if (!section.getBlockState(index & 15, index >>> 8, (index >>> 4) & 15).moonrise$emptyContextCollisionShape()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void assertCounts(ProtoChunk chunk, String step) {
+        final LevelChunkSection[] sections = chunk.getSections();
+        for (int i = 0; i < sections.length; i++) {
+            assertEquals(recount(sections[i]), sections[i].canvas$collidingBlockCount, step + ", section " + i);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testCountMatchesRecount(boolean optimizeNoiseGeneration) {
+        Config.INSTANCE.chunks.optimizeNoiseGeneration = optimizeNoiseGeneration;
+        final ProtoChunk chunk = new TestChunkGeneration(SEED).noise(new ChunkPos(3, -7));
+        assertCounts(chunk, "noise fill");
+
+        final Random random = new Random(SEED);
+        final LevelChunkSection[] sections = chunk.getSections();
+        for (int i = 0; i < 20000; i++) {
+            final LevelChunkSection section = sections[random.nextInt(sections.length)];
+            section.setBlockState(random.nextInt(16), random.nextInt(16), random.nextInt(16), PALETTE[random.nextInt(PALETTE.length)], false);
+        }
+        assertCounts(chunk, "setBlockState");
+
+        // writes straight into the palette leave the counters behind until they are recalculated, like loaded sections
+        for (final LevelChunkSection section : sections) {
+            for (int i = 0; i < 300; i++) {
+                section.states.set(random.nextInt(16), random.nextInt(16), random.nextInt(16), PALETTE[random.nextInt(PALETTE.length)]);
+            }
+            section.recalcBlockCounts();
+        }
+        assertCounts(chunk, "recalcBlockCounts");
+    }
+}
@@ -0,0 +1,159 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.google.gson.JsonElement;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.JsonOps;
+import io.canvasmc.canvas.Config;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.RegistryOps;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.levelgen.DensityFunction;
+import net.minecraft.world.level.levelgen.DensityFunctions;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.NoiseRouter;
+import net.minecraft.world.level.levelgen.RandomState;
+import org.bukkit.support.RegistryHelper;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The router RandomState compiles has to compute exactly what the interpreted router computes, and encode like it.
+ */
+@AllFeatures
+public class CompiledDensityFunctionTest {
+    private static final long SEED = 33L;
+    private static final int SAMPLES = 4096;
+
+    @BeforeAll
+    public static void setup() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.compileDensityFunctions = false;
+    }
+
+    private static NoiseRouter router(boolean compiled) {
+        final RegistryAccess registries = RegistryHelper.getRegistry();
+        final NoiseGeneratorSettings settings = registries.lookupOrThrow(Registries.NOISE_SETTINGS).getOrThrow(NoiseGeneratorSettings.OVERWORLD).value();
+        Config.INSTANCE.chunks.compileDensityFunctions = compiled;
+        try {
+            return RandomState.create(settings, registries.lookupOrThrow(Registries.NOISE), SEED).router();
+        } finally {
+            Config.INSTANCE.chunks.compileDensityFunctions = false;
+        }
+    }
+
+    private static List<DensityFunction> functions(NoiseRouter router) {
+        return List.of(
+            router.barrierNoise(), router.fluidLevelFloodednessNoise(), router.fluidLevelSpreadNoise(), router.lavaNoise(),
+            router.temperature(), router.vegetation(), router.continents(), router.erosion(), router.depth(), router.ridges(),
+            router.initialDensityWithoutJaggedness(), router.finalDensity(), router.veinToggle(), router.veinRidged(), router.veinGap()
+        );
+    }
+
+    @Test
+    public void testRouterIsCompiled() {
+        // the final density is arithmetic over noises, it must not be left to the interpreter
+        assertInstanceOf(CompiledDensityFunction.class, unwrapDirectHolder(router(true).finalDensity()));
+    }
+
+    private static DensityFunction unwrapDirectHolder(DensityFunction function) {
+        return function instanceof DensityFunctions.HolderHolder holder ? holder.function().value() : function;
+    }
+
+    @Test
+    public void testComputeMatchesInterpreted() {
+        final List<DensityFunction> expected = functions(router(false));
+        final List<DensityFunction> actual = functions(router(true));
+        final Random random = new Random(SEED);
+        final DensityFunction.FunctionContext[] points = new DensityFunction.FunctionContext[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            points[i] = new DensityFunction.SinglePointContext(random.nextInt(20000) - 10000, random.nextInt(384) - 64, random.nextInt(20000) - 10000);
+        }
+        final Points provider = new Points(points);
+
+        for (int function = 0; function < expected.size(); function++) {
+            for (final DensityFunction.FunctionContext point : points) {
+                assertEquals(expected.get(function).compute(point), actual.get(function).compute(point), "router function " + function + " at " + point);
+            }
+            final double[] expectedArray = new double[SAMPLES];
+            final double[] actualArray = new double[SAMPLES];
+            expected.get(function).fillArray(expectedArray, provider);
+            actual.get(function).fillArray(actualArray, provider);
+            for (int i = 0; i < SAMPLES; i++) {
+                assertEquals(expectedArray[i], actualArray[i], "router function " + function + " filled at " + points[i]);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3})
+    public void testNoiseFillMatchesInterpreted(int index) {
+        final ChunkPos pos = new ChunkPos((index - 2) * 131, index * 57);
+        final ProtoChunk interpreted = new TestChunkGeneration(SEED).noise(pos);
+        Config.INSTANCE.chunks.compileDensityFunctions = true;
+        final ProtoChunk compiled = new TestChunkGeneration(SEED).noise(pos);
+
+        final LevelChunkSection[] expected = interpreted.getSections();
+        final LevelChunkSection[] actual = compiled.getSections();
+        for (int section = 0; section < expected.length; section++) {
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        final BlockState state = expected[section].getBlockState(x, y, z);
+                        if (state != actual[section].getBlockState(x, y, z)) {
+                            final int blockY = compiled.getSectionYFromSectionIndex(section) * 16 + y;
+                            assertEquals(state, actual[section].getBlockState(x, y, z), pos.getBlockAt(x, blockY, z).toString());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledRouterEncodesAsInterpreted() {
+        final DynamicOps<JsonElement> ops = RegistryOps.create(JsonOps.INSTANCE, RegistryHelper.getRegistry());
+        final List<DensityFunction> expected = functions(router(false));
+        final List<DensityFunction> actual = functions(router(true));
+        for (int i = 0; i < expected.size(); i++) {
+            // router fields are encoded through the holder codec, like NoiseRouter.CODEC does
+            assertEquals(
+                DensityFunction.HOLDER_HELPER_CODEC.encodeStart(ops, expected.get(i)).getOrThrow(),
+                DensityFunction.HOLDER_HELPER_CODEC.encodeStart(ops, actual.get(i)).getOrThrow(),
+                "router function " + i
+            );
+        }
+    }
+
+    private record Points(DensityFunction.FunctionContext[] points) implements DensityFunction.ContextProvider {
+        @Override
+        public DensityFunction.FunctionContext forIndex(int index) {
+            return this.points[index];
+        }
+
+        @Override
+        public void fillAllDirectly(double[] values, DensityFunction function) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = function.compute(this.points[i]);
+            }
+        }
+    }
+}
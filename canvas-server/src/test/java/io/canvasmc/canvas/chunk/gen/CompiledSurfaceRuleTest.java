@@ -0,0 +1,64 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.canvasmc.canvas.Config;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The compiled surface rules have to place exactly the blocks the interpreted rule tree places.
+ */
+@AllFeatures
+public class CompiledSurfaceRuleTest {
+    private static final long SEED = 34L;
+    // spread out far enough to reach oceans, beaches, badlands and mountains
+    private static final int SPACING = 97;
+
+    @BeforeAll
+    public static void setup() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.compileSurfaceRules = false;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7})
+    public void testCompiledRulesPlaceSameBlocks(int index) {
+        final TestChunkGeneration generation = new TestChunkGeneration(SEED);
+        final ChunkPos pos = new ChunkPos((index % 4 - 2) * SPACING, (index / 4 - 1) * SPACING * 3);
+
+        Config.INSTANCE.chunks.compileSurfaceRules = false;
+        final ProtoChunk interpreted = generation.surface(pos);
+        Config.INSTANCE.chunks.compileSurfaceRules = true;
+        final ProtoChunk compiled = generation.surface(pos);
+
+        final LevelChunkSection[] expected = interpreted.getSections();
+        final LevelChunkSection[] actual = compiled.getSections();
+        for (int section = 0; section < expected.length; section++) {
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        final BlockState state = expected[section].getBlockState(x, y, z);
+                        if (state != actual[section].getBlockState(x, y, z)) {
+                            final int blockY = compiled.getSectionYFromSectionIndex(section) * 16 + y;
+                            assertEquals(state, actual[section].getBlockState(x, y, z), pos.getBlockAt(x, blockY, z).toString());
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
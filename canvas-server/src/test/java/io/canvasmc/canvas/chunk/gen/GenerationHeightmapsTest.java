@@ -0,0 +1,60 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.canvasmc.canvas.Config;
+import java.util.EnumSet;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.levelgen.Heightmap;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The heightmaps tracked during generation have to be the ones the features stage would prime by scanning the chunk.
+ */
+@AllFeatures
+public class GenerationHeightmapsTest {
+    private static final long SEED = 40L;
+    private static final int SPACING = 97;
+    // the heightmaps primed by the features stage
+    private static final EnumSet<Heightmap.Types> FINAL = EnumSet.of(
+        Heightmap.Types.MOTION_BLOCKING, Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, Heightmap.Types.OCEAN_FLOOR, Heightmap.Types.WORLD_SURFACE
+    );
+
+    @BeforeAll
+    public static void setup() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.trackGenerationHeightmaps = false;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 4, 5, 6, 7})
+    public void testTrackedHeightmapsMatchPrimed(int index) {
+        final TestChunkGeneration generation = new TestChunkGeneration(SEED);
+        final ChunkPos pos = new ChunkPos((index % 4 - 2) * SPACING, (index / 4 - 1) * SPACING * 3);
+
+        Config.INSTANCE.chunks.trackGenerationHeightmaps = false;
+        final ProtoChunk primed = generation.surface(pos);
+        GenerationHeightmaps.primeHeightmaps(primed, EnumSet.copyOf(FINAL));
+
+        Config.INSTANCE.chunks.trackGenerationHeightmaps = true;
+        final ProtoChunk tracked = generation.surface(pos);
+        assertNotNull(tracked.canvas$trackedHeightmaps, "heightmaps were not tracked");
+        GenerationHeightmaps.primeHeightmaps(tracked, EnumSet.copyOf(FINAL));
+
+        for (final Heightmap.Types type : FINAL) {
+            assertArrayEquals(primed.getOrCreateHeightmapUnprimed(type).getRawData(), tracked.getOrCreateHeightmapUnprimed(type).getRawData(), pos + " " + type);
+        }
+    }
+}
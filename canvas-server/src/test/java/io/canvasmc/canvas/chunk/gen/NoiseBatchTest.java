@@ -0,0 +1,129 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.canvasmc.canvas.simd.SIMDDetection;
+import java.util.Random;
+import net.minecraft.world.level.levelgen.XoroshiroRandomSource;
+import net.minecraft.world.level.levelgen.synth.ImprovedNoise;
+import net.minecraft.world.level.levelgen.synth.NormalNoise;
+import net.minecraft.world.level.levelgen.synth.PerlinNoise;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The batched samplers have to return exactly the values of the scalar ones, terrain must not change with the batch
+ * path enabled.
+ */
+@Normal
+public class NoiseBatchTest {
+    // counts around the vector lengths, so both the vector loop and the scalar tail are covered
+    private static final int[] COUNTS = {1, 3, 8, 17, 255, 4097};
+
+    private boolean simdEnabled;
+
+    @BeforeEach
+    public void saveSimdState() {
+        this.simdEnabled = SIMDDetection.isEnabled;
+    }
+
+    @AfterEach
+    public void restoreSimdState() {
+        SIMDDetection.isEnabled = this.simdEnabled;
+    }
+
+    private static void setSimd(boolean simd) {
+        if (simd) {
+            assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "jdk.incubator.vector is not available");
+        }
+        SIMDDetection.isEnabled = simd;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testImprovedNoiseBatch(boolean simd) {
+        setSimd(simd);
+        final Random random = new Random(31L);
+        for (int seed = 0; seed < 8; ++seed) {
+            final ImprovedNoise noise = new ImprovedNoise(new XoroshiroRandomSource(seed));
+            for (final int count : COUNTS) {
+                final Positions positions = Positions.random(random, count);
+                final double[] out = new double[count];
+                noise.canvas$noiseBatch(positions.x, positions.y, positions.z, out, count, NoiseBatch.get(count));
+                for (int i = 0; i < count; ++i) {
+                    assertEquals(noise.noise(positions.x[i], positions.y[i], positions.z[i]), out[i], positions.describe(i));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testPerlinNoiseBatch(boolean simd) {
+        setSimd(simd);
+        final Random random = new Random(310L);
+        for (int seed = 0; seed < 8; ++seed) {
+            // a zero amplitude leaves its octave out, like the vanilla noise parameters do
+            final PerlinNoise noise = PerlinNoise.create(new XoroshiroRandomSource(seed), -7, 1.0, 1.0, 0.0, 2.0, 0.5, 0.0, 1.0);
+            for (final int count : COUNTS) {
+                final Positions positions = Positions.random(random, count);
+                final double[] out = new double[count];
+                noise.canvas$getValueBatch(positions.x, positions.y, positions.z, out, count, NoiseBatch.get(count));
+                for (int i = 0; i < count; ++i) {
+                    assertEquals(noise.getValue(positions.x[i], positions.y[i], positions.z[i]), out[i], positions.describe(i));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void testNormalNoiseBatch(boolean simd) {
+        setSimd(simd);
+        final Random random = new Random(3100L);
+        for (int seed = 0; seed < 8; ++seed) {
+            final NormalNoise noise = NormalNoise.create(new XoroshiroRandomSource(seed), -9, 1.0, 0.0, 3.0, 3.0, 3.0, 3.0);
+            for (final int count : COUNTS) {
+                final Positions positions = Positions.random(random, count);
+                final double[] out = new double[count];
+                noise.canvas$getValueBatch(positions.x, positions.y, positions.z, out, count, NoiseBatch.get(count));
+                for (int i = 0; i < count; ++i) {
+                    assertEquals(noise.getValue(positions.x[i], positions.y[i], positions.z[i]), out[i], positions.describe(i));
+                }
+            }
+        }
+    }
+
+    private record Positions(double[] x, double[] y, double[] z) {
+
+        static Positions random(Random random, int count) {
+            final Positions positions = new Positions(new double[count], new double[count], new double[count]);
+            for (int i = 0; i < count; ++i) {
+                positions.x[i] = coordinate(random);
+                positions.y[i] = coordinate(random);
+                positions.z[i] = coordinate(random);
+            }
+            return positions;
+        }
+
+        private static double coordinate(Random random) {
+            return switch (random.nextInt(4)) {
+                // block positions scaled like the noise router does
+                case 0 -> (random.nextInt(60_000_000) - 30_000_000) * 0.25;
+                // exact cell borders
+                case 1 -> random.nextInt(2048) - 1024;
+                // far out, where the perlin wrap kicks in
+                case 2 -> (random.nextDouble() * 2.0 - 1.0) * 1.0E9;
+                default -> (random.nextDouble() * 2.0 - 1.0) * 4096.0;
+            };
+        }
+
+        String describe(int i) {
+            return "position " + this.x[i] + ", " + this.y[i] + ", " + this.z[i];
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.canvasmc.canvas.Config;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.core.Holder;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Climate;
+import net.minecraft.world.level.biome.MultiNoiseBiomeSource;
+import net.minecraft.world.level.biome.MultiNoiseBiomeSourceParameterLists;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.Aquifer;
+import net.minecraft.world.level.levelgen.DensityFunctions;
+import net.minecraft.world.level.levelgen.NoiseChunk;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.NoiseRouter;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import org.bukkit.support.RegistryHelper;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The random state's sampler, used by structure placement, and the samplers of noise chunks have to share cache
+ * entries, also when their lookups interleave.
+ */
+@AllFeatures
+public class QuartBiomeCacheTest {
+    private static final long SEED = 35L;
+
+    private final RegistryAccess registries = RegistryHelper.getRegistry();
+    private NoiseGeneratorSettings settings;
+    private MultiNoiseBiomeSource biomeSource;
+
+    @BeforeAll
+    public static void setupConfig() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        Config.INSTANCE.chunks.useMultiNoiseBiomeCache = true;
+        this.settings = this.registries.lookupOrThrow(Registries.NOISE_SETTINGS).getOrThrow(NoiseGeneratorSettings.OVERWORLD).value();
+        this.biomeSource = MultiNoiseBiomeSource.createFromPreset(
+            this.registries.lookupOrThrow(Registries.MULTI_NOISE_BIOME_SOURCE_PARAMETER_LIST).getOrThrow(MultiNoiseBiomeSourceParameterLists.OVERWORLD)
+        );
+        QuartBiomeCache.resetStats();
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.useMultiNoiseBiomeCache = false;
+    }
+
+    private RandomState randomState(long seed) {
+        return RandomState.create(this.settings, this.registries.lookupOrThrow(Registries.NOISE), seed);
+    }
+
+    private Climate.Sampler noiseChunkSampler(RandomState randomState, ChunkPos pos) throws ReflectiveOperationException {
+        final ProtoChunk chunk = new ProtoChunk(
+            pos, UpgradeData.EMPTY, LevelHeightAccessor.create(this.settings.noiseSettings().minY(), this.settings.noiseSettings().height()),
+            this.registries.lookupOrThrow(Registries.BIOME), null
+        );
+        final Aquifer.FluidPicker fluidPicker = (x, y, z) -> new Aquifer.FluidStatus(this.settings.seaLevel(), Blocks.WATER.defaultBlockState());
+        final NoiseChunk noiseChunk = NoiseChunk.forChunk(chunk, randomState, DensityFunctions.BeardifierMarker.INSTANCE, this.settings, fluidPicker, Blender.empty());
+        // the sampler NoiseBasedChunkGenerator#createBiomes fills the chunk's biomes with
+        final Method cachedClimateSampler = NoiseChunk.class.getDeclaredMethod("cachedClimateSampler", NoiseRouter.class, List.class);
+        cachedClimateSampler.setAccessible(true);
+        return (Climate.Sampler) cachedClimateSampler.invoke(noiseChunk, randomState.router(), this.settings.spawnTarget());
+    }
+
+    private static List<int[]> quarts(ChunkPos pos) {
+        final List<int[]> quarts = new ArrayList<>();
+        for (int y = -16; y < 80; y += 3) {
+            for (int z = 0; z < 4; z++) {
+                for (int x = 0; x < 4; x++) {
+                    quarts.add(new int[]{(pos.x << 2) + x, y, (pos.z << 2) + z});
+                }
+            }
+        }
+        return quarts;
+    }
+
+    private List<Holder<Biome>> uncached(List<int[]> quarts, Climate.Sampler sampler) {
+        Config.INSTANCE.chunks.useMultiNoiseBiomeCache = false;
+        try {
+            final List<Holder<Biome>> biomes = new ArrayList<>(quarts.size());
+            for (final int[] quart : quarts) {
+                biomes.add(this.biomeSource.getNoiseBiome(quart[0], quart[1], quart[2], sampler));
+            }
+            return biomes;
+        } finally {
+            Config.INSTANCE.chunks.useMultiNoiseBiomeCache = true;
+        }
+    }
+
+    @Test
+    public void testInterleavedSamplersShareEntries() throws ReflectiveOperationException {
+        final RandomState randomState = this.randomState(SEED);
+        final ChunkPos pos = new ChunkPos(12, -7);
+        final Climate.Sampler noiseSampler = this.noiseChunkSampler(randomState, pos);
+        final Climate.Sampler structureSampler = randomState.sampler();
+        final List<int[]> quarts = quarts(pos);
+        final List<Holder<Biome>> expected = this.uncached(quarts, structureSampler);
+
+        for (int i = 0; i < quarts.size(); i++) {
+            final int[] quart = quarts.get(i);
+            assertSame(expected.get(i), this.biomeSource.getNoiseBiome(quart[0], quart[1], quart[2], noiseSampler));
+            assertSame(expected.get(i), this.biomeSource.getNoiseBiome(quart[0], quart[1], quart[2], structureSampler));
+        }
+        // every lookup by the structure sampler is served by the entry the noise chunk sampler just stored
+        assertEquals(quarts.size(), QuartBiomeCache.misses());
+        assertEquals(quarts.size(), QuartBiomeCache.hits());
+
+        // a new noise chunk of the same random state reuses everything
+        final Climate.Sampler nextNoiseSampler = this.noiseChunkSampler(randomState, pos);
+        for (int i = 0; i < quarts.size(); i++) {
+            final int[] quart = quarts.get(i);
+            assertSame(expected.get(i), this.biomeSource.getNoiseBiome(quart[0], quart[1], quart[2], nextNoiseSampler));
+        }
+        assertEquals(quarts.size(), QuartBiomeCache.misses());
+        assertEquals(2L * quarts.size(), QuartBiomeCache.hits());
+    }
+
+    @Test
+    public void testOtherRandomStateDoesNotReuseEntries() throws ReflectiveOperationException {
+        final ChunkPos pos = new ChunkPos(-3, 40);
+        final List<int[]> quarts = quarts(pos);
+        final Climate.Sampler first = this.noiseChunkSampler(this.randomState(SEED), pos);
+        final Climate.Sampler other = this.randomState(SEED + 1L).sampler();
+        final List<Holder<Biome>> expected = this.uncached(quarts, other);
+
+        for (final int[] quart : quarts) {
+            this.biomeSource.getNoiseBiome(quart[0], quart[1], quart[2], first);
+        }
+        for (int i = 0; i < quarts.size(); i++) {
+            final int[] quart = quarts.get(i);
+            assertSame(expected.get(i), this.biomeSource.getNoiseBiome(quart[0], quart[1], quart[2], other));
+        }
+        assertEquals(2L * quarts.size(), QuartBiomeCache.misses());
+        assertEquals(0L, QuartBiomeCache.hits());
+    }
+}
@@ -0,0 +1,68 @@
+package io.canvasmc.canvas.chunk.gen;
+
+import static org.mockito.Mockito.mock;
+
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.minecraft.world.level.StructureManager;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.BiomeManager;
+import net.minecraft.world.level.biome.MultiNoiseBiomeSource;
+import net.minecraft.world.level.biome.MultiNoiseBiomeSourceParameterLists;
+import net.minecraft.world.level.chunk.ProtoChunk;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.level.levelgen.NoiseBasedChunkGenerator;
+import net.minecraft.world.level.levelgen.NoiseGeneratorSettings;
+import net.minecraft.world.level.levelgen.NoiseSettings;
+import net.minecraft.world.level.levelgen.RandomState;
+import net.minecraft.world.level.levelgen.WorldGenerationContext;
+import net.minecraft.world.level.levelgen.blending.Blender;
+import org.bukkit.support.RegistryHelper;
+
+/**
+ * Runs the biome, noise and surface steps of overworld generation on a standalone proto chunk, without a level.
+ * Structures are left out and every step reads the current config, so a test can generate the same chunk with an
+ * option on and off.
+ */
+final class TestChunkGeneration {
+    private final RegistryAccess registries = RegistryHelper.getRegistry();
+    private final Registry<Biome> biomes = this.registries.lookupOrThrow(Registries.BIOME);
+    private final NoiseBasedChunkGenerator generator;
+    private final RandomState randomState;
+    private final LevelHeightAccessor heightAccessor;
+    private final StructureManager structureManager = mock(StructureManager.class);
+    private final long seed;
+
+    TestChunkGeneration(long seed) {
+        final Holder<NoiseGeneratorSettings> settings = this.registries.lookupOrThrow(Registries.NOISE_SETTINGS).getOrThrow(NoiseGeneratorSettings.OVERWORLD);
+        final NoiseSettings noiseSettings = settings.value().noiseSettings();
+        this.generator = new NoiseBasedChunkGenerator(
+            MultiNoiseBiomeSource.createFromPreset(this.registries.lookupOrThrow(Registries.MULTI_NOISE_BIOME_SOURCE_PARAMETER_LIST).getOrThrow(MultiNoiseBiomeSourceParameterLists.OVERWORLD)),
+            settings
+        );
+        this.randomState = RandomState.create(settings.value(), this.registries.lookupOrThrow(Registries.NOISE), seed);
+        this.heightAccessor = LevelHeightAccessor.create(noiseSettings.minY(), noiseSettings.height());
+        this.seed = seed;
+    }
+
+    ProtoChunk noise(ChunkPos pos) {
+        final ProtoChunk chunk = new ProtoChunk(pos, UpgradeData.EMPTY, this.heightAccessor, this.biomes, null);
+        this.generator.createBiomes(this.randomState, Blender.empty(), this.structureManager, chunk).join();
+        this.generator.fillFromNoise(Blender.empty(), this.randomState, this.structureManager, chunk).join();
+        return chunk;
+    }
+
+    ProtoChunk surface(ChunkPos pos) {
+        final ProtoChunk chunk = this.noise(pos);
+        // biomes of neighbouring chunks are read from this chunk's edge, which is the same for both runs of a test
+        this.generator.buildSurface(
+            chunk, new WorldGenerationContext(this.generator, this.heightAccessor), this.randomState, this.structureManager,
+            new BiomeManager(chunk, BiomeManager.obfuscateSeed(this.seed)), this.biomes, Blender.empty()
+        );
+        return chunk;
+    }
+}
@@ -0,0 +1,88 @@
+package io.canvasmc.canvas.chunk.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.DataResult;
+import io.canvasmc.canvas.Config;
+import java.util.List;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cached decodes have to report the same value, errors and lifecycle as the vanilla codec, also on a cache hit.
+ */
+@Normal
+public class CachingBlockStateCodecTest {
+
+    @BeforeAll
+    public static void setup() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+        Config.INSTANCE.chunks.cacheBlockStateDecoding = true;
+    }
+
+    @AfterAll
+    public static void teardown() {
+        Config.INSTANCE.chunks.cacheBlockStateDecoding = false;
+    }
+
+    @Test
+    public void testDecodeMatchesVanilla() {
+        final CompoundTag unknownProperty = stairs("not_a_property", "true");
+        final CompoundTag badValue = stairs("facing", "up");
+        final CompoundTag unknownBlock = new CompoundTag();
+        unknownBlock.putString("Name", "canvas:not_a_block");
+
+        final List<CompoundTag> tags = List.of(
+            NbtUtils.writeBlockState(Blocks.AIR.defaultBlockState()),
+            NbtUtils.writeBlockState(Blocks.OAK_STAIRS.defaultBlockState()),
+            unknownProperty,
+            badValue,
+            unknownBlock
+        );
+
+        final CachingBlockStateCodec codec = new CachingBlockStateCodec(BlockState.CODEC);
+        // the second round is served from the cache
+        for (int round = 0; round < 2; round++) {
+            for (final CompoundTag tag : tags) {
+                final DataResult<Pair<BlockState, Tag>> expected = BlockState.CODEC.decode(NbtOps.INSTANCE, tag);
+                final DataResult<Pair<BlockState, Tag>> actual = codec.decode(NbtOps.INSTANCE, tag.copy());
+                assertEquals(expected.isSuccess(), actual.isSuccess(), tag.toString());
+                assertEquals(expected.lifecycle(), actual.lifecycle(), tag.toString());
+                assertEquals(expected.resultOrPartial().map(Pair::getFirst), actual.resultOrPartial().map(Pair::getFirst), tag.toString());
+                assertEquals(expected.error().map(DataResult.Error::message), actual.error().map(DataResult.Error::message), tag.toString());
+            }
+        }
+    }
+
+    private static CompoundTag stairs(String property, String value) {
+        final CompoundTag properties = new CompoundTag();
+        properties.putString(property, value);
+        final CompoundTag tag = new CompoundTag();
+        tag.putString("Name", "minecraft:oak_stairs");
+        tag.put("Properties", properties);
+        return tag;
+    }
+
+    @Test
+    public void testCachedKeyIsNotTheReadTag() {
+        final CachingBlockStateCodec codec = new CachingBlockStateCodec(BlockState.CODEC);
+        final CompoundTag tag = NbtUtils.writeBlockState(Blocks.STONE.defaultBlockState());
+        assertEquals(Blocks.STONE.defaultBlockState(), codec.parse(NbtOps.INSTANCE, tag).getOrThrow());
+
+        // the chunk tag may be reused after the load, this must not change what the cached entry matches
+        tag.putString("Name", "minecraft:dirt");
+        assertEquals(Blocks.DIRT.defaultBlockState(), codec.parse(NbtOps.INSTANCE, tag).getOrThrow());
+        assertEquals(Blocks.STONE.defaultBlockState(), codec.parse(NbtOps.INSTANCE, NbtUtils.writeBlockState(Blocks.STONE.defaultBlockState())).getOrThrow());
+    }
+}
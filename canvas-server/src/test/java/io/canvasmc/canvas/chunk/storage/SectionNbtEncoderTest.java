@@ -0,0 +1,100 @@
+package io.canvasmc.canvas.chunk.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mojang.serialization.Codec;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.biome.Biomes;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.bukkit.support.RegistryHelper;
+import org.bukkit.support.environment.AllFeatures;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * The directly encoded sections have to be the tags the chunk serializer codecs write, and decode to the same
+ * containers.
+ */
+@AllFeatures
+public class SectionNbtEncoderTest {
+    // the codecs SerializableChunkData encodes and decodes sections with
+    private static final Codec<PalettedContainer<BlockState>> BLOCK_STATE_CODEC = PalettedContainer.codecRW(
+        Block.BLOCK_STATE_REGISTRY, BlockState.CODEC, PalettedContainer.Strategy.SECTION_STATES, Blocks.AIR.defaultBlockState(), null
+    );
+
+    private static Codec<PalettedContainerRO<Holder<Biome>>> biomeCodec(Registry<Biome> biomes) {
+        return PalettedContainer.codecRO(
+            biomes.asHolderIdMap(), biomes.holderByNameCodec(), PalettedContainer.Strategy.SECTION_BIOMES, biomes.getOrThrow(Biomes.PLAINS)
+        );
+    }
+
+    // single value, linear, hashmap and global palettes
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 12, 200, 4096})
+    public void testBlockStatesRoundTrip(int distinctStates) {
+        final Random random = new Random(27L + distinctStates);
+        final List<BlockState> pool = Block.BLOCK_STATE_REGISTRY.stream().toList();
+        final BlockState[] states = new BlockState[distinctStates];
+        for (int i = 0; i < distinctStates; ++i) {
+            states[i] = pool.get(random.nextInt(pool.size()));
+        }
+        final PalettedContainer<BlockState> container = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES);
+        for (int i = 0; i < 4096; ++i) {
+            container.set(i & 15, i >> 8, (i >> 4) & 15, states[i % distinctStates]);
+        }
+
+        final CompoundTag direct = SectionNbtEncoder.encodeBlockStates(container);
+        final Tag vanilla = BLOCK_STATE_CODEC.encodeStart(NbtOps.INSTANCE, container).getOrThrow();
+        assertEquals(vanilla, direct);
+
+        final PalettedContainer<BlockState> decoded = BLOCK_STATE_CODEC.parse(NbtOps.INSTANCE, direct).getOrThrow();
+        for (int i = 0; i < 4096; ++i) {
+            assertSame(container.get(i & 15, i >> 8, (i >> 4) & 15), decoded.get(i & 15, i >> 8, (i >> 4) & 15));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 9, 64})
+    public void testBiomesRoundTrip(int distinctBiomes) {
+        final Registry<Biome> biomes = RegistryHelper.getRegistry().lookupOrThrow(Registries.BIOME);
+        final Codec<PalettedContainerRO<Holder<Biome>>> codec = biomeCodec(biomes);
+        final Random random = new Random(270L + distinctBiomes);
+        final List<Holder.Reference<Biome>> pool = biomes.listElements().toList();
+        final PalettedContainer<Holder<Biome>> container = new PalettedContainer<>(biomes.asHolderIdMap(), biomes.getOrThrow(Biomes.PLAINS), PalettedContainer.Strategy.SECTION_BIOMES);
+        final Holder<Biome>[] picked = pickBiomes(pool, random, distinctBiomes);
+        for (int i = 0; i < 64; ++i) {
+            container.set(i & 3, i >> 4, (i >> 2) & 3, picked[i % picked.length]);
+        }
+
+        final CompoundTag direct = SectionNbtEncoder.encodeBiomes(container, biomes);
+        final Tag vanilla = codec.encodeStart(NbtOps.INSTANCE, container).getOrThrow();
+        assertEquals(vanilla, direct);
+
+        final PalettedContainerRO<Holder<Biome>> decoded = codec.parse(NbtOps.INSTANCE, direct).getOrThrow();
+        for (int i = 0; i < 64; ++i) {
+            assertEquals(container.get(i & 3, i >> 4, (i >> 2) & 3), decoded.get(i & 3, i >> 4, (i >> 2) & 3));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Holder<Biome>[] pickBiomes(List<Holder.Reference<Biome>> pool, Random random, int count) {
+        final Holder<Biome>[] picked = new Holder[Math.min(count, pool.size())];
+        for (int i = 0; i < picked.length; ++i) {
+            picked[i] = pool.get(random.nextInt(pool.size()));
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,235 @@
+package io.canvasmc.canvas.explosion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import ca.spottedleaf.moonrise.common.util.TickThread;
+import io.canvasmc.canvas.Config;
+import io.papermc.paper.configuration.GlobalConfiguration;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.PrimedTnt;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.EntityBasedExplosionDamageCalculator;
+import net.minecraft.world.level.Explosion;
+import net.minecraft.world.level.ExplosionDamageCalculator;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.ServerExplosion;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.phys.Vec3;
+import org.bukkit.support.environment.Normal;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.MockedStatic;
+import org.mockito.invocation.InvocationOnMock;
+
+/**
+ * Explodes the same seeded block volume through the sequential ray loop and through the worker pool and checks both
+ * produce the same blocks in the same order.
+ */
+@Normal
+public class ParallelExplosionRaysTest {
+    private static final BlockState[] PALETTE = {
+        Blocks.AIR.defaultBlockState(), Blocks.AIR.defaultBlockState(), Blocks.AIR.defaultBlockState(),
+        Blocks.STONE.defaultBlockState(), Blocks.DIRT.defaultBlockState(), Blocks.OAK_PLANKS.defaultBlockState(),
+        Blocks.GLASS.defaultBlockState(), Blocks.WATER.defaultBlockState(), Blocks.OBSIDIAN.defaultBlockState()
+    };
+    private static final Vec3 CENTER = new Vec3(0.5, 64.5, 0.5);
+    private static boolean installedGlobalConfig;
+
+    private final Map<BlockPos, BlockState> blocks = new HashMap<>();
+    private ServerLevel level;
+
+    @BeforeAll
+    public static void setupConfig() throws ReflectiveOperationException {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+        if (GlobalConfiguration.get() == null) {
+            final GlobalConfiguration global = new GlobalConfiguration();
+            global.unsupportedSettings = global.new UnsupportedSettings();
+            setGlobalConfig(global);
+            installedGlobalConfig = true;
+        }
+    }
+
+    @AfterAll
+    public static void resetGlobalConfig() throws ReflectiveOperationException {
+        if (installedGlobalConfig) {
+            setGlobalConfig(null);
+        }
+    }
+
+    private static void setGlobalConfig(@Nullable GlobalConfiguration global) throws ReflectiveOperationException {
+        final Field instance = GlobalConfiguration.class.getDeclaredField("instance");
+        instance.setAccessible(true);
+        instance.set(null, global);
+    }
+
+    @BeforeEach
+    public void setup() {
+        final Random random = new Random(48L);
+        for (int x = -14; x <= 14; x++) {
+            for (int y = 50; y <= 78; y++) {
+                for (int z = -14; z <= 14; z++) {
+                    this.blocks.put(new BlockPos(x, y, z), PALETTE[random.nextInt(PALETTE.length)]);
+                }
+            }
+        }
+        final LevelChunk chunk = mock(LevelChunk.class, withSettings().stubOnly().defaultAnswer(this::answer));
+        this.level = mock(ServerLevel.class, withSettings().stubOnly().defaultAnswer(invocation -> switch (invocation.getMethod().getName()) {
+            case "getChunk", "getChunkAt", "getChunkIfLoaded", "getChunkIfLoadedImmediately" -> chunk;
+            default -> this.answer(invocation);
+        }));
+        Config.INSTANCE.explosions.parallelRayCastingMinRadius = 0.0F;
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.explosions.parallelRayCasting = false;
+        Config.INSTANCE.explosions.parallelRayCastingMinRadius = 8.0F;
+    }
+
+    // answers block lookups of both the level and its chunks from the block map
+    private Object answer(InvocationOnMock invocation) throws Throwable {
+        final Object[] args = invocation.getArguments();
+        return switch (invocation.getMethod().getName()) {
+            case "getBlockState", "getBlockStateFinal", "moonrise$getBlockStateFinal", "getBlockStateIfLoaded" -> this.state(args);
+            case "getFluidState" -> this.state(args).getFluidState();
+            case "getMinY" -> -64;
+            case "getMaxY" -> 319;
+            case "getHeight" -> 384;
+            case "getMinSectionY" -> -4;
+            case "getMaxSectionY" -> 19;
+            case "isInWorldBounds" -> ((BlockPos) args[0]).getY() >= -64 && ((BlockPos) args[0]).getY() <= 319;
+            case "isOutsideBuildHeight" -> {
+                final int y = args[0] instanceof BlockPos pos ? pos.getY() : (int) args[0];
+                yield y < -64 || y > 319;
+            }
+            default -> Answers.RETURNS_DEFAULTS.answer(invocation);
+        };
+    }
+
+    private BlockState state(Object[] args) {
+        final BlockPos pos = args.length == 1 ? (BlockPos) args[0] : new BlockPos((int) args[0], (int) args[1], (int) args[2]);
+        return this.blocks.getOrDefault(pos, Blocks.AIR.defaultBlockState());
+    }
+
+    @Test
+    public void testDefaultCalculator() throws ReflectiveOperationException {
+        for (final float radius : new float[] {4.0F, 9.0F}) {
+            this.assertSameBlocks(radius, false, null);
+            this.assertSameBlocks(radius, true, null);
+        }
+    }
+
+    @Test
+    public void testTntRejectingBlocks() throws ReflectiveOperationException {
+        final PrimedTnt tnt = mock(PrimedTnt.class, withSettings().stubOnly());
+        when(tnt.getBlockExplosionResistance(any(), any(), any(), any(), any(), anyFloat())).thenAnswer(invocation -> invocation.getArgument(5));
+        // planks and every other layer of dirt survive, so shouldBlockExplode decides part of the result
+        when(tnt.shouldBlockExplode(any(), any(), any(), any(), anyFloat())).thenAnswer(invocation -> {
+            final BlockPos pos = invocation.getArgument(2);
+            final BlockState state = invocation.getArgument(3);
+            return !state.is(Blocks.OAK_PLANKS) && !(state.is(Blocks.DIRT) && (pos.getY() & 1) == 0);
+        });
+        for (final float radius : new float[] {4.0F, 9.0F}) {
+            this.assertSameBlocks(radius, false, tnt);
+            this.assertSameBlocks(radius, true, tnt);
+        }
+    }
+
+    private void assertSameBlocks(float radius, boolean fire, @Nullable Entity source) throws ReflectiveOperationException {
+        final long seed = Float.floatToIntBits(radius) * 31L + (fire ? 1 : 0);
+
+        Config.INSTANCE.explosions.parallelRayCasting = false;
+        this.setRandom(seed);
+        final ServerExplosion sequentialExplosion = this.explosion(radius, fire, source, calculator(source));
+        prepareBlockCaches(sequentialExplosion);
+        final Method calculate = ServerExplosion.class.getDeclaredMethod("calculateExplodedPositions");
+        calculate.setAccessible(true);
+        @SuppressWarnings("unchecked") final List<BlockPos> sequential = (List<BlockPos>) calculate.invoke(sequentialExplosion);
+
+        Config.INSTANCE.explosions.parallelRayCasting = true;
+        this.setRandom(seed);
+        final ExplosionDamageCalculator calculator = calculator(source);
+        final ServerExplosion parallelExplosion = this.explosion(radius, fire, source, calculator);
+        final List<BlockPos> parallel;
+        try (final MockedStatic<TickThread> tickThread = mockStatic(TickThread.class)) {
+            tickThread.when(() -> TickThread.isTickThreadFor(any(Level.class), anyInt(), anyInt())).thenReturn(true);
+            parallel = ParallelExplosionRays.calculate(parallelExplosion, this.level, CENTER, radius, fire, calculator, source);
+        }
+
+        assertNotNull(parallel, "explosion was not handed to the worker pool");
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel, "radius " + radius + ", fire " + fire + ", source " + source);
+    }
+
+    private static ExplosionDamageCalculator calculator(@Nullable Entity source) {
+        return source == null ? new ExplosionDamageCalculator() : new EntityBasedExplosionDamageCalculator(source);
+    }
+
+    private ServerExplosion explosion(float radius, boolean fire, @Nullable Entity source, ExplosionDamageCalculator calculator) {
+        return new ServerExplosion(this.level, source, mock(DamageSource.class), calculator, CENTER, radius, fire, Explosion.BlockInteraction.DESTROY);
+    }
+
+    private void setRandom(long seed) throws ReflectiveOperationException {
+        final Field random = Level.class.getDeclaredField("random");
+        random.setAccessible(true);
+        random.set(this.level, RandomSource.create(seed));
+    }
+
+    // explode() sets these up before calculating the positions and drops them afterwards
+    private static void prepareBlockCaches(ServerExplosion explosion) throws ReflectiveOperationException {
+        final int chunkCacheWidth = staticInt("CHUNK_CACHE_WIDTH");
+        final int blockCacheWidth = staticInt("BLOCK_EXPLOSION_CACHE_WIDTH");
+        final long[] chunkPosCache = new long[chunkCacheWidth * chunkCacheWidth];
+        Arrays.fill(chunkPosCache, ChunkPos.INVALID_CHUNK_POS);
+        setField(explosion, "blockCache", new Long2ObjectOpenHashMap<>());
+        setField(explosion, "chunkPosCache", chunkPosCache);
+        setField(explosion, "chunkCache", new LevelChunk[chunkCacheWidth * chunkCacheWidth]);
+        final Field directMapped = ServerExplosion.class.getDeclaredField("directMappedBlockCache");
+        directMapped.setAccessible(true);
+        directMapped.set(explosion, Array.newInstance(directMapped.getType().getComponentType(), blockCacheWidth * blockCacheWidth * blockCacheWidth));
+        setField(explosion, "mutablePos", new BlockPos.MutableBlockPos());
+    }
+
+    private static int staticInt(String name) throws ReflectiveOperationException {
+        final Field field = ServerExplosion.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.getInt(null);
+    }
+
+    private static void setField(ServerExplosion explosion, String name, Object value) throws ReflectiveOperationException {
+        final Field field = ServerExplosion.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(explosion, value);
+    }
+}
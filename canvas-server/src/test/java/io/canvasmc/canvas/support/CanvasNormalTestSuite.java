@@ -0,0 +1,15 @@
+package io.canvasmc.canvas.support;
+
+import org.junit.platform.suite.api.ConfigurationParameter;
+import org.junit.platform.suite.api.IncludeTags;
+import org.junit.platform.suite.api.SelectPackages;
+import org.junit.platform.suite.api.Suite;
+import org.junit.platform.suite.api.SuiteDisplayName;
+
+@Suite(failIfNoTests = false)
+@SuiteDisplayName("Test suite for standard Canvas tests")
+@IncludeTags("Normal")
+@SelectPackages("io.canvasmc")
+@ConfigurationParameter(key = "TestSuite", value = "Normal")
+public class CanvasNormalTestSuite {
+}
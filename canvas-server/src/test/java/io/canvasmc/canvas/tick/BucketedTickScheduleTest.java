@@ -0,0 +1,155 @@
+package io.canvasmc.canvas.tick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.canvasmc.canvas.Config;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.ticks.LevelChunkTicks;
+import net.minecraft.world.ticks.LevelTicks;
+import net.minecraft.world.ticks.ScheduledTick;
+import net.minecraft.world.ticks.TickPriority;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+@Normal
+public class BucketedTickScheduleTest {
+    private static final Comparator<ScheduledTick<String>> DRAIN_ORDER = Comparator.<ScheduledTick<String>>comparingLong(ScheduledTick::triggerTick)
+        .thenComparing(ScheduledTick::priority)
+        .thenComparingLong(ScheduledTick::subTickOrder);
+    private static final long START = 100L;
+    private static final long END = 180L;
+    private static final int CHUNKS = 6;
+
+    @BeforeAll
+    public static void setup() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @Test
+    public void testTicksRunAtTriggerTickInDrainOrder() {
+        final List<ScheduledTick<String>> ticks = randomTicks(new Random(46L), 512);
+        final List<ScheduledTick<String>> expected = new ArrayList<>(ticks);
+        expected.sort(DRAIN_ORDER);
+
+        for (final boolean bucketed : new boolean[]{false, true}) {
+            final TickRun run = new TickRun(bucketed, Integer.MAX_VALUE);
+            // scheduling in random order goes through both the first insert and the earlier tick path of the container schedule
+            for (final ScheduledTick<String> tick : ticks) {
+                run.ticks.schedule(tick);
+            }
+            run.runUntil(END);
+
+            assertEquals(expected.size(), run.executed.size(), "bucketed: " + bucketed);
+            for (int i = 0; i < expected.size(); i++) {
+                final ScheduledTick<String> tick = expected.get(i);
+                final Executed executed = run.executed.get(i);
+                assertEquals(tick.type(), executed.type(), "bucketed: " + bucketed);
+                assertEquals(tick.triggerTick(), executed.gameTime(), "bucketed: " + bucketed + ", tick: " + tick.type());
+            }
+        }
+    }
+
+    @Test
+    public void testLimitedTicksMatchVanilla() {
+        final List<ScheduledTick<String>> ticks = randomTicks(new Random(460L), 512);
+        final TickRun vanilla = new TickRun(false, 7);
+        final TickRun bucketed = new TickRun(true, 7);
+        for (final TickRun run : new TickRun[]{vanilla, bucketed}) {
+            // the first chunk may not tick for a while, so its ticks pile up and have to be picked up later
+            run.blockedChunk = ChunkPos.asLong(0, 0);
+            run.blockedUntil = START + 20L;
+            for (final ScheduledTick<String> tick : ticks) {
+                run.ticks.schedule(tick);
+            }
+            run.runUntil(END * 4L);
+        }
+
+        assertEquals(ticks.size(), vanilla.executed.size());
+        assertEquals(vanilla.executed, bucketed.executed);
+    }
+
+    @Test
+    public void testReloadedContainersMatchVanilla() {
+        final Random random = new Random(4600L);
+        final List<ScheduledTick<String>> first = randomTicks(random, 128);
+        final List<ScheduledTick<String>> second = randomTicks(random, 128);
+        final TickRun vanilla = new TickRun(false, Integer.MAX_VALUE);
+        final TickRun bucketed = new TickRun(true, Integer.MAX_VALUE);
+        for (final TickRun run : new TickRun[]{vanilla, bucketed}) {
+            for (final ScheduledTick<String> tick : first) {
+                run.ticks.schedule(tick);
+            }
+            run.runUntil(START + 10L);
+
+            // unload a chunk and load it again with ticks already queued, like a chunk coming back from disk
+            final ChunkPos pos = new ChunkPos(1, 0);
+            run.ticks.removeContainer(pos);
+            final LevelChunkTicks<String> reloaded = new LevelChunkTicks<>();
+            for (final ScheduledTick<String> tick : second) {
+                if (new ChunkPos(tick.pos()).equals(pos) && tick.triggerTick() > run.gameTime) {
+                    reloaded.schedule(tick);
+                }
+            }
+            run.ticks.addContainer(pos, reloaded);
+            for (final ScheduledTick<String> tick : second) {
+                if (!new ChunkPos(tick.pos()).equals(pos) && tick.triggerTick() > run.gameTime) {
+                    run.ticks.schedule(tick);
+                }
+            }
+            run.runUntil(END);
+        }
+
+        assertEquals(vanilla.executed, bucketed.executed);
+    }
+
+    private static List<ScheduledTick<String>> randomTicks(Random random, int count) {
+        final TickPriority[] priorities = TickPriority.values();
+        final List<ScheduledTick<String>> ticks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final BlockPos pos = new BlockPos(random.nextInt(CHUNKS * 16), random.nextInt(64), random.nextInt(16));
+            final long triggerTick = START + 1L + random.nextInt((int) (END - START) / 2);
+            // sub tick orders are unique per tick like the level's counter, but not in scheduling order
+            ticks.add(new ScheduledTick<>("tick-" + i, pos, triggerTick, priorities[random.nextInt(priorities.length)], random.nextInt(count) * (long) count + i));
+        }
+        return ticks;
+    }
+
+    private record Executed(long gameTime, String type, BlockPos pos) {
+    }
+
+    private static final class TickRun {
+        private final LevelTicks<String> ticks;
+        private final int maxAllowedTicks;
+        private final List<Executed> executed = new ArrayList<>();
+        private long gameTime = START;
+        private long blockedChunk = Long.MIN_VALUE;
+        private long blockedUntil = Long.MIN_VALUE;
+
+        private TickRun(boolean bucketed, int maxAllowedTicks) {
+            Config.INSTANCE.chunks.bucketedLevelTicks = bucketed;
+            try {
+                this.ticks = new LevelTicks<>(chunk -> chunk != this.blockedChunk || this.gameTime >= this.blockedUntil, null, true);
+            } finally {
+                Config.INSTANCE.chunks.bucketedLevelTicks = false;
+            }
+            this.maxAllowedTicks = maxAllowedTicks;
+            for (int chunkX = 0; chunkX < CHUNKS; chunkX++) {
+                this.ticks.addContainer(new ChunkPos(chunkX, 0), new LevelChunkTicks<>());
+            }
+        }
+
+        private void runUntil(long end) {
+            for (; this.gameTime <= end; this.gameTime++) {
+                this.ticks.tick(this.gameTime, this.maxAllowedTicks, (pos, type) -> this.executed.add(new Executed(this.gameTime, type, pos)));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.canvasmc.canvas.util.structure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.BooleanOp;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+import org.bukkit.support.environment.Normal;
+import org.junit.jupiter.api.Test;
+
+@Normal
+public class BoxGridIndexTest {
+    private static final AABB BOUNDARY = new AABB(-40, -12, -36, 61, 50, 72);
+
+    private static AABB randomBox(Random random, int maxSize) {
+        // block aligned like the bounding boxes of jigsaw pieces, partly sticking out of the boundary
+        final int minX = random.nextInt(-50, 70);
+        final int minY = random.nextInt(-20, 60);
+        final int minZ = random.nextInt(-45, 80);
+        return new AABB(minX, minY, minZ, minX + 1 + random.nextInt(maxSize), minY + 1 + random.nextInt(maxSize), minZ + 1 + random.nextInt(maxSize));
+    }
+
+    @Test
+    public void testPlacementMatchesVoxelShapes() {
+        final Random random = new Random(37L);
+        for (int structure = 0; structure < 16; structure++) {
+            final AABB start = randomBox(random, 12);
+            // the start piece of JigsawPlacement#addPieces, carved out of the structure bounds
+            VoxelShape shape = Shapes.join(Shapes.create(BOUNDARY), Shapes.create(start), BooleanOp.ONLY_FIRST);
+            final BoxGridIndex index = new BoxGridIndex(BOUNDARY);
+            index.addBox(start);
+
+            int placed = 0;
+            for (int candidate = 0; candidate < 512; candidate++) {
+                final AABB piece = randomBox(random, 16);
+                final AABB deflated = piece.deflate(0.25);
+                final boolean fits = !Shapes.joinIsNotEmpty(shape, Shapes.create(deflated), BooleanOp.ONLY_SECOND);
+                assertEquals(fits, index.withinBoundsButNotIntersectingChildren(deflated), "structure " + structure + ", piece " + piece);
+                if (fits) {
+                    shape = Shapes.joinUnoptimized(shape, Shapes.create(piece), BooleanOp.ONLY_FIRST);
+                    index.addBox(piece);
+                    placed++;
+                }
+            }
+            assertTrue(placed > 0, "structure " + structure);
+        }
+    }
+
+    @Test
+    public void testQueriesMatchBoxList() {
+        final Random random = new Random(370L);
+        final BoxGridIndex index = new BoxGridIndex(BOUNDARY);
+        final List<AABB> boxes = new ArrayList<>();
+        for (int i = 0; i < 96; i++) {
+            // overlapping and duplicate boxes, as the octree accepted them
+            final AABB box = i % 8 == 7 ? boxes.get(random.nextInt(boxes.size())) : randomBox(random, 20);
+            boxes.add(box);
+            index.addBox(box);
+
+            for (int query = 0; query < 64; query++) {
+                final AABB queryBox = randomBox(random, 24).move(random.nextDouble() - 0.5, 0.0, random.nextDouble() - 0.5);
+                assertEquals(boxes.stream().anyMatch(queryBox::intersects), index.intersectsAnyBox(queryBox), "query " + queryBox);
+                assertEquals(
+                    BOUNDARY.contains(queryBox.minX, queryBox.minY, queryBox.minZ) && BOUNDARY.contains(queryBox.maxX, queryBox.maxY, queryBox.maxZ),
+                    index.boundaryEntirelyContains(queryBox), "query " + queryBox
+                );
+
+                final BlockPos pos = new BlockPos(random.nextInt(-55, 85), random.nextInt(-25, 85), random.nextInt(-50, 95));
+                assertEquals(boxes.stream().anyMatch(box1 -> box1.contains(pos.getX(), pos.getY(), pos.getZ())), index.withinAnyBox(pos), "pos " + pos);
+                assertEquals(BOUNDARY.contains(pos.getX(), pos.getY(), pos.getZ()), index.boundaryContains(pos), "pos " + pos);
+            }
+        }
+    }
+}
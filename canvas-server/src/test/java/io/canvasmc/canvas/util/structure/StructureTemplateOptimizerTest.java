@@ -0,0 +1,163 @@
+package io.canvasmc.canvas.util.structure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+import io.canvasmc.canvas.Config;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.ServerLevelAccessor;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+import net.minecraft.world.level.block.StairBlock;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.structure.BoundingBox;
+import net.minecraft.world.level.levelgen.structure.templatesystem.BlockIgnoreProcessor;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessor;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureProcessorType;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import org.bukkit.support.environment.Normal;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@Normal
+public class StructureTemplateOptimizerTest {
+    // reads both the original and the transformed position, like most processors do
+    private static final StructureProcessor POSITION_PROCESSOR = new StructureProcessor() {
+        @Override
+        public @Nullable StructureTemplate.StructureBlockInfo processBlock(
+            LevelReader level, BlockPos offset, BlockPos pos, StructureTemplate.StructureBlockInfo blockInfo,
+            StructureTemplate.StructureBlockInfo relativeBlockInfo, StructurePlaceSettings settings
+        ) {
+            final int hash = relativeBlockInfo.pos().getX() * 31 + blockInfo.pos().getZ();
+            if (Math.floorMod(hash, 7) == 0) {
+                return null;
+            }
+            return Math.floorMod(hash, 5) == 0 ? new StructureTemplate.StructureBlockInfo(relativeBlockInfo.pos(), Blocks.MOSSY_COBBLESTONE.defaultBlockState(), null) : relativeBlockInfo;
+        }
+
+        @Override
+        protected StructureProcessorType<?> getType() {
+            return null;
+        }
+    };
+
+    private final ServerLevelAccessor level = mock(ServerLevelAccessor.class);
+
+    @BeforeAll
+    public static void setupConfig() {
+        if (Config.INSTANCE == null) {
+            Config.INSTANCE = new Config();
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        Config.INSTANCE.chunks.structures.optimizeStructureGen = true;
+    }
+
+    @AfterEach
+    public void reset() {
+        Config.INSTANCE.chunks.structures.optimizeStructureGen = false;
+    }
+
+    private static StructureTemplate.Palette palette(Random random) throws ReflectiveOperationException {
+        final BlockState[] states = {
+            Blocks.STONE.defaultBlockState(),
+            Blocks.AIR.defaultBlockState(),
+            Blocks.STRUCTURE_BLOCK.defaultBlockState(),
+            Blocks.OAK_STAIRS.defaultBlockState().setValue(StairBlock.FACING, Direction.EAST),
+            Blocks.CHEST.defaultBlockState()
+        };
+        final List<StructureTemplate.StructureBlockInfo> blocks = new ArrayList<>();
+        for (int y = 0; y < 6; y++) {
+            for (int z = 0; z < 11; z++) {
+                for (int x = 0; x < 9; x++) {
+                    final BlockState state = states[random.nextInt(states.length)];
+                    CompoundTag nbt = null;
+                    if (state.is(Blocks.CHEST)) {
+                        nbt = new CompoundTag();
+                        nbt.putString("LootTable", "minecraft:chests/village/village_plains_house");
+                    }
+                    blocks.add(new StructureTemplate.StructureBlockInfo(new BlockPos(x, y, z), state, nbt));
+                }
+            }
+        }
+        final Constructor<StructureTemplate.Palette> constructor = StructureTemplate.Palette.class.getDeclaredConstructor(List.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance(blocks);
+    }
+
+    private static List<StructureTemplate.StructureBlockInfo> inBounds(List<StructureTemplate.StructureBlockInfo> blockInfos, BoundingBox box) {
+        // StructureTemplate#placeInWorld skips everything outside of the placement's bounding box
+        final List<StructureTemplate.StructureBlockInfo> inBounds = new ArrayList<>();
+        for (final StructureTemplate.StructureBlockInfo blockInfo : blockInfos) {
+            if (box.isInside(blockInfo.pos())) {
+                inBounds.add(blockInfo);
+            }
+        }
+        return inBounds;
+    }
+
+    @Test
+    public void testProcessedBlocksMatchVanilla() throws ReflectiveOperationException {
+        final Random random = new Random(38L);
+        final StructureTemplate.Palette palette = palette(random);
+        for (int placement = 0; placement < 64; placement++) {
+            final BlockPos offset = new BlockPos(random.nextInt(-40, 40), random.nextInt(-64, 100), random.nextInt(-40, 40));
+            final BlockPos pivot = placement % 2 == 0 ? BlockPos.ZERO : new BlockPos(random.nextInt(9), 0, random.nextInt(11));
+            // a chunk sized box cutting through the template, like the boxes placement is clipped to during generation
+            final int boxX = offset.getX() + random.nextInt(-16, 16);
+            final int boxZ = offset.getZ() + random.nextInt(-16, 16);
+            final BoundingBox box = new BoundingBox(boxX, offset.getY() - 4, boxZ, boxX + 15, offset.getY() + 3, boxZ + 15);
+            final StructurePlaceSettings settings = new StructurePlaceSettings()
+                .setMirror(Mirror.values()[random.nextInt(Mirror.values().length)])
+                .setRotation(Rotation.values()[random.nextInt(Rotation.values().length)])
+                .setRotationPivot(pivot)
+                .setBoundingBox(box)
+                .addProcessor(BlockIgnoreProcessor.STRUCTURE_BLOCK)
+                .addProcessor(POSITION_PROCESSOR);
+
+            final List<StructureTemplate.StructureBlockInfo> expected = StructureTemplate.processBlockInfos(this.level, offset, offset, settings, palette.blocks());
+            final List<StructureTemplate.StructureBlockInfo> planned = StructureTemplateOptimizer.getStructureBlockInfosInBounds(palette, offset, settings);
+            assertInstanceOf(PlannedStructureBlockInfoList.class, planned);
+            final List<StructureTemplate.StructureBlockInfo> actual = StructureTemplate.processBlockInfos(this.level, offset, offset, settings, planned);
+
+            assertEquals(inBounds(expected, box), inBounds(actual, box), "placement " + placement);
+        }
+    }
+
+    @Test
+    public void testPlansAreBoundedPerTransformation() throws ReflectiveOperationException {
+        final StructureTemplate.Palette palette = palette(new Random(380L));
+        final StructurePlacementPlan plan = StructurePlacementPlan.of(palette, Mirror.FRONT_BACK, Rotation.CLOCKWISE_90, BlockPos.ZERO);
+        assertSame(plan, StructurePlacementPlan.of(palette, Mirror.FRONT_BACK, Rotation.CLOCKWISE_90, BlockPos.ZERO));
+
+        // another pivot replaces the plan of its transformation instead of adding one
+        final BlockPos pivot = new BlockPos(4, 0, 5);
+        final StructurePlacementPlan pivoted = StructurePlacementPlan.of(palette, Mirror.FRONT_BACK, Rotation.CLOCKWISE_90, pivot);
+        assertNotSame(plan, pivoted);
+        assertSame(pivoted, StructurePlacementPlan.of(palette, Mirror.FRONT_BACK, Rotation.CLOCKWISE_90, pivot));
+        assertEquals(Mirror.values().length * Rotation.values().length, palette.canvas$placementPlans.length);
+
+        final List<StructureTemplate.StructureBlockInfo> blocks = palette.blocks();
+        for (int i = 0; i < blocks.size(); i++) {
+            final BlockPos expected = StructureTemplate.transform(blocks.get(i).pos(), Mirror.FRONT_BACK, Rotation.CLOCKWISE_90, pivot);
+            assertEquals(expected, new BlockPos(pivoted.x(i), pivoted.y(i), pivoted.z(i)));
+        }
+    }
+}